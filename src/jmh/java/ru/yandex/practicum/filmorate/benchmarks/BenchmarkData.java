@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.benchmarks;
+
+import ru.yandex.practicum.filmorate.model.*;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Deterministic dataset for storage benchmarks: the same seed and sizes always give the same films,
+ * users, likes and friendships, whatever storage they are loaded into.
+ * Ids are assumed to be assigned from 1 in insertion order, as both storages do on an empty start.
+ */
+final class BenchmarkData {
+    static final long SEED = 20221010L;
+    private static final int MPA_COUNT = 5;
+    private static final int GENRE_COUNT = 6;
+
+    final int films;
+    final int users;
+    final int likesPerUser;
+    final int friendsPerUser;
+    private final long seed;
+
+    BenchmarkData(int films, int users, int likesPerUser, int friendsPerUser) {
+        this(films, users, likesPerUser, friendsPerUser, SEED);
+    }
+
+    BenchmarkData(int films, int users, int likesPerUser, int friendsPerUser, long seed) {
+        this.films = films;
+        this.users = users;
+        this.likesPerUser = Math.min(likesPerUser, films);
+        this.friendsPerUser = Math.min(friendsPerUser, users - 1);
+        this.seed = seed;
+    }
+
+    void load(FilmStorage filmStorage, UserStorage userStorage) {
+        Random random = new Random(seed);
+        List<User> userList = new ArrayList<>(users);
+        for (int i = 1; i <= users; i++) {
+            userList.add(user(i, random));
+        }
+        userStorage.addUsers(userList);
+        List<Film> filmList = new ArrayList<>(films);
+        for (int i = 1; i <= films; i++) {
+            filmList.add(film("Film" + i, random));
+        }
+        filmStorage.addFilms(filmList);
+
+        for (long userId = 1; userId <= users; userId++) {
+            for (long filmId : distinct(random, likesPerUser, films, 0)) {
+                filmStorage.addLike(filmId, userId);
+            }
+            for (long friendId : distinct(random, friendsPerUser, users, userId)) {
+                userStorage.addFriend(userId, friendId);
+            }
+        }
+    }
+
+    static User user(int number, Random random) {
+        return UserBuilder.builder()
+                .login("user" + number)
+                .name("User " + number)
+                .email("user" + number + "@mail.ru")
+                .birthday(LocalDate.of(1950, 1, 1).plusDays(random.nextInt(20000)))
+                .build();
+    }
+
+    static Film film(String name, Random random) {
+        Set<Genre> genres = new TreeSet<>(Comparator.comparing(Genre::getId));
+        int genreCount = random.nextInt(3);
+        for (int i = 0; i < genreCount; i++) {
+            genres.add(Genre.builder().id((long) random.nextInt(GENRE_COUNT) + 1).build());
+        }
+        return FilmBuilder.builder()
+                .name(name)
+                .description("Description of " + name)
+                .releaseDate(LocalDate.of(1950, 1, 1).plusDays(random.nextInt(26000)))
+                .duration(60 + random.nextInt(120))
+                .mpa(Mpa.builder().id((long) random.nextInt(MPA_COUNT) + 1).build())
+                .genres(genres)
+                .build();
+    }
+
+    /**
+     * {@code count} distinct ids from [1, bound] except {@code excluded}.
+     */
+    private static Set<Long> distinct(Random random, int count, int bound, long excluded) {
+        Set<Long> ids = new LinkedHashSet<>();
+        while (ids.size() < count) {
+            long id = random.nextInt(bound) + 1;
+            if (id != excluded) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate.benchmarks;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import javax.sql.DataSource;
+
+/**
+ * In-memory H2 database migrated with the application's Flyway scripts and filled with
+ * deterministic data, so every run of a benchmark works on the same dataset.
+ */
+final class BenchmarkDatabase {
+    static final int LIKES_PER_USER = 100;
+
+    private BenchmarkDatabase() {
+    }
+
+    static EmbeddedDatabase create() {
+        return create("latest");
+    }
+
+    /**
+     * Migrates only up to {@code targetVersion}, e.g. "1.1" to measure the schema before the join table keys.
+     */
+    static EmbeddedDatabase create(String targetVersion) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        migrate(database, targetVersion);
+        return database;
+    }
+
+    static void migrate(DataSource dataSource, String targetVersion) {
+        Flyway.configure().dataSource(dataSource).target(targetVersion).load().migrate();
+    }
+
+    static void insertFilms(JdbcTemplate jdbcTemplate, int films) {
+        jdbcTemplate.update("insert into FILMS (FILM_NAME, RELEASE_DATE, DESCRIPTION, DURATION, RATE, MPA_ID) " +
+                "select 'Film' || X, DATE '2000-01-01', 'description', 120, 0, MOD(X, 5) + 1 " +
+                "from SYSTEM_RANGE(1, ?)", films);
+    }
+
+    static void insertUsers(JdbcTemplate jdbcTemplate, int users) {
+        jdbcTemplate.update("insert into USERS (USER_LOGIN, USER_NAME, EMAIL, BIRTHDAY) " +
+                "select 'user' || X, 'user' || X, 'user' || X || '@mail.ru', DATE '1990-01-01' " +
+                "from SYSTEM_RANGE(1, ?)", users);
+    }
+
+    /**
+     * Inserts {@code likes} distinct likes from {@code likes / LIKES_PER_USER} users, which have to exist.
+     * User U likes films (U + K * K) mod films for K in [0, LIKES_PER_USER), so films >= LIKES_PER_USER^2
+     * keeps the pairs unique.
+     */
+    static void insertLikes(JdbcTemplate jdbcTemplate, int likes, int films) {
+        jdbcTemplate.update("insert into LIKES (FILM_ID, USER_ID) " +
+                        "select MOD(X / ? + MOD(X, ?) * MOD(X, ?), ?) + 1, X / ? + 1 from SYSTEM_RANGE(0, ? - 1)",
+                LIKES_PER_USER, LIKES_PER_USER, LIKES_PER_USER, films, LIKES_PER_USER, likes);
+        jdbcTemplate.update("update FILMS as F set LIKE_COUNT = " +
+                "(select count(*) from LIKES as L where L.FILM_ID = F.FILM_ID)");
+    }
+}
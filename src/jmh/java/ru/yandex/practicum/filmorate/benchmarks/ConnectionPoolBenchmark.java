@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.benchmarks;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.impl.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.impl.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.impl.MpaDbStorage;
+import ru.yandex.practicum.filmorate.storage.impl.ReferenceDictionary;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Throughput of storage calls from many threads against a file-based H2 behind a HikariCP pool
+ * of {@code poolSize} connections, the same setup as the application's datasource.
+ * The load-test profile runs it for a range of pool sizes:
+ * mvn -P jmh,load-test test-compile exec:exec
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Threads(32)
+@Fork(1)
+public class ConnectionPoolBenchmark {
+    @Param({"1", "4", "10", "32"})
+    public int poolSize;
+    @Param("10000")
+    public int films;
+    @Param("100000")
+    public int likes;
+
+    private Path directory;
+    private HikariDataSource dataSource;
+    private FilmDbStorage filmDbStorage;
+    private int users;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("filmorate-pool");
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:file:" + directory.resolve("filmorate"));
+        config.setUsername("sa");
+        config.setPassword("password");
+        config.setPoolName("benchmark");
+        config.setMaximumPoolSize(poolSize);
+        config.setMinimumIdle(poolSize);
+        dataSource = new HikariDataSource(config);
+        BenchmarkDatabase.migrate(dataSource, "latest");
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        users = likes / BenchmarkDatabase.LIKES_PER_USER;
+        BenchmarkDatabase.insertFilms(jdbcTemplate, films);
+        BenchmarkDatabase.insertUsers(jdbcTemplate, users);
+        BenchmarkDatabase.insertLikes(jdbcTemplate, likes, films);
+        filmDbStorage = new FilmDbStorage(jdbcTemplate,
+                new ReferenceDictionary(new GenreDbStorage(jdbcTemplate), new MpaDbStorage(jdbcTemplate)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        dataSource.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Film getFilmById() {
+        return filmDbStorage.getFilmById((long) ThreadLocalRandom.current().nextInt(films) + 1);
+    }
+
+    @Benchmark
+    public List<Film> getBestFilms() {
+        return filmDbStorage.getBestFilms(10);
+    }
+
+    @Benchmark
+    public void deleteAndRestoreLike() {
+        long userId = ThreadLocalRandom.current().nextInt(users) + 1;
+        long filmId = (userId - 1) % films + 1;
+        filmDbStorage.deleteLike(filmId, userId);
+        filmDbStorage.addLike(filmId, userId);
+    }
+}
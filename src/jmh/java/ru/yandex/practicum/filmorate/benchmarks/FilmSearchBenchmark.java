@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmBuilder;
+import ru.yandex.practicum.filmorate.service.FilmSearchIndex;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search latency over {@code films} films with names of 3 and descriptions of 20 words drawn
+ * from a {@code vocabulary}-word dictionary with skewed word frequencies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class FilmSearchBenchmark {
+    private static final Set<FilmSearchIndex.Field> ALL_FIELDS = EnumSet.allOf(FilmSearchIndex.Field.class);
+
+    @Param("1000000")
+    public int films;
+    @Param("50000")
+    public int vocabulary;
+
+    private FilmSearchIndex searchIndex;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        random = new Random(42);
+        searchIndex = new FilmSearchIndex();
+        searchIndex.load(consumer -> {
+            for (long id = 1; id <= films; id++) {
+                Film film = FilmBuilder.builder()
+                        .id(id)
+                        .name(words(3))
+                        .description(words(20))
+                        .releaseDate(LocalDate.of(2000, 1, 1))
+                        .duration(120)
+                        .build();
+                consumer.accept(film);
+            }
+        });
+    }
+
+    @Benchmark
+    public List<Long> rareTerm() {
+        return searchIndex.search(word(vocabulary / 2 + random.nextInt(vocabulary / 2)), ALL_FIELDS, 10);
+    }
+
+    @Benchmark
+    public List<Long> commonTerms() {
+        return searchIndex.search("w" + random.nextInt(10) + " w" + random.nextInt(100), ALL_FIELDS, 10);
+    }
+
+    @Benchmark
+    public List<Long> nameOnly() {
+        return searchIndex.search(words(2), EnumSet.of(FilmSearchIndex.Field.NAME), 10);
+    }
+
+    private String words(int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            double r = random.nextDouble();
+            text.append(word((int) (vocabulary * r * r * r))).append(' ');
+        }
+        return text.toString();
+    }
+
+    private static String word(int index) {
+        return "w" + index;
+    }
+}
@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserBuilder;
+import ru.yandex.practicum.filmorate.service.FriendGraph;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uncached friend suggestions for a user with {@code friends} friends, each of them having
+ * {@code friends} friends too, drawn from {@code users} users.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FriendSuggestionsBenchmark {
+    @Param("5000")
+    public int friends;
+    @Param("1000000")
+    public int users;
+
+    private FriendGraph friendGraph;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        friendGraph = new FriendGraph();
+        friendGraph.load(consumer -> {
+            for (long id = 1; id <= friends + 1; id++) {
+                Set<Long> friendIds = new HashSet<>();
+                if (id == 1) {
+                    for (long friendId = 2; friendId <= friends + 1; friendId++) {
+                        friendIds.add(friendId);
+                    }
+                } else {
+                    while (friendIds.size() < friends) {
+                        friendIds.add((long) random.nextInt(users) + 1);
+                    }
+                }
+                User user = UserBuilder.builder()
+                        .id(id)
+                        .login("user" + id)
+                        .email("user" + id + "@mail.ru")
+                        .birthday(LocalDate.of(1990, 1, 1))
+                        .friendsId(friendIds)
+                        .build();
+                consumer.accept(user);
+            }
+        });
+    }
+
+    @Benchmark
+    public List<Long> suggestions() {
+        return friendGraph.getSuggestions(1);
+    }
+}
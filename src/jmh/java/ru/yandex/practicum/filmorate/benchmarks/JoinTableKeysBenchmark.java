@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups on the LIKES join table with and without the V2 keys (composite primary key plus reverse index).
+ * With keyed=false the schema stays at V1.1, where only the foreign key indexes exist.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JoinTableKeysBenchmark {
+    @Param("10000000")
+    public int likes;
+    @Param("100000")
+    public int films;
+    @Param({"true", "false"})
+    public boolean keyed;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private int users;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = keyed ? BenchmarkDatabase.create() : BenchmarkDatabase.create("1.1");
+        jdbcTemplate = new JdbcTemplate(database);
+        users = likes / BenchmarkDatabase.LIKES_PER_USER;
+        BenchmarkDatabase.insertFilms(jdbcTemplate, films);
+        BenchmarkDatabase.insertUsers(jdbcTemplate, users);
+        BenchmarkDatabase.insertLikes(jdbcTemplate, likes, films);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Benchmark
+    public List<Long> likesOfFilm() {
+        long filmId = ThreadLocalRandom.current().nextInt(films) + 1;
+        return jdbcTemplate.queryForList("select USER_ID from LIKES where FILM_ID = ?", Long.class, filmId);
+    }
+
+    @Benchmark
+    public List<Long> filmsLikedByUser() {
+        long userId = ThreadLocalRandom.current().nextInt(users) + 1;
+        return jdbcTemplate.queryForList("select FILM_ID from LIKES where USER_ID = ?", Long.class, userId);
+    }
+
+    @Benchmark
+    public int deleteAndRestoreLike() {
+        long userId = ThreadLocalRandom.current().nextInt(users) + 1;
+        long filmId = (userId - 1) % films + 1;
+        int deleted = jdbcTemplate.update("delete from LIKES where FILM_ID = ? and USER_ID = ?", filmId, userId);
+        return deleted + jdbcTemplate.update("insert into LIKES (FILM_ID, USER_ID) values (?, ?)", filmId, userId);
+    }
+}
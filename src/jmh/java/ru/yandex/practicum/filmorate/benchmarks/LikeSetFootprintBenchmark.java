@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jol.info.GraphLayout;
+import ru.yandex.practicum.filmorate.model.LongIdSet;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retained size of a film's like set, measured with JOL and printed once per trial, together with
+ * the cost of the like checks done by the in-memory storage. {@code HashSet} is the boxed set
+ * the model used before {@link LongIdSet}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djdk.attach.allowAttachSelf=true")
+public class LikeSetFootprintBenchmark {
+    @Param({"10000", "1000000"})
+    public int likes;
+    @Param({"HashSet", "LongIdSet"})
+    public String set;
+
+    private Set<Long> userIds;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userIds = "HashSet".equals(set) ? new HashSet<>() : new LongIdSet();
+        random = new SplittableRandom(BenchmarkData.SEED);
+        for (long userId = 1; userId <= likes; userId++) {
+            userIds.add(userId);
+        }
+        long bytes = GraphLayout.parseInstance(userIds).totalSize();
+        System.out.printf("%n%s of %d likes: %d bytes, %.1f bytes per like%n",
+                set, likes, bytes, (double) bytes / likes);
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return userIds.contains((long) random.nextInt(2 * likes) + 1);
+    }
+}
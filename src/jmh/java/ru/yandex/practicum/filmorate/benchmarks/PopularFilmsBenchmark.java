@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import ru.yandex.practicum.filmorate.service.PopularFilmsLeaderboard;
+import ru.yandex.practicum.filmorate.storage.impl.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.impl.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.impl.MpaDbStorage;
+import ru.yandex.practicum.filmorate.storage.impl.ReferenceDictionary;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-N popular films: the original GROUP BY over LIKES, the LIKE_COUNT index read
+ * and the in-memory leaderboard.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PopularFilmsBenchmark {
+    @Param("1000000")
+    public int likes;
+    @Param("10000")
+    public int films;
+    @Param("10")
+    public int count;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private PopularFilmsLeaderboard leaderboard;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.create();
+        jdbcTemplate = new JdbcTemplate(database);
+        BenchmarkDatabase.insertFilms(jdbcTemplate, films);
+        BenchmarkDatabase.insertUsers(jdbcTemplate, likes / BenchmarkDatabase.LIKES_PER_USER);
+        BenchmarkDatabase.insertLikes(jdbcTemplate, likes, films);
+
+        FilmDbStorage filmDbStorage = new FilmDbStorage(jdbcTemplate,
+                new ReferenceDictionary(new GenreDbStorage(jdbcTemplate), new MpaDbStorage(jdbcTemplate)));
+        leaderboard = new PopularFilmsLeaderboard();
+        leaderboard.load(filmDbStorage.getFilmPopularity());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Benchmark
+    public List<Long> groupByLikes() {
+        return jdbcTemplate.queryForList("select F.FILM_ID from FILMS as F left join LIKES as L " +
+                "on F.FILM_ID = L.FILM_ID group by F.FILM_ID order by count(L.USER_ID) desc LIMIT ?",
+                Long.class, count);
+    }
+
+    @Benchmark
+    public List<Long> likeCountIndex() {
+        return jdbcTemplate.queryForList("select FILM_ID from FILMS order by LIKE_COUNT desc, FILM_ID LIMIT ?",
+                Long.class, count);
+    }
+
+    @Benchmark
+    public List<Long> leaderboard() {
+        return leaderboard.getTop(count);
+    }
+}
@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.service.RecommendationModel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Item-item model build time and recommendation latency. Every user likes {@code likesPerUser} films,
+ * film popularity is skewed towards low ids.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = "-Xmx8g")
+public class RecommendationBenchmark {
+    @Param("1000000")
+    public int users;
+    @Param("100000")
+    public int films;
+    @Param("20")
+    public int likesPerUser;
+
+    private long[] filmIds;
+    private long[][] usersByFilm;
+    private List<List<Long>> likedByUser;
+    private RecommendationModel model;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        int[] filmOfLike = new int[users * likesPerUser];
+        int[] likesPerFilm = new int[films];
+        for (int like = 0; like < filmOfLike.length; like++) {
+            double r = random.nextDouble();
+            filmOfLike[like] = (int) (films * r * r);
+            likesPerFilm[filmOfLike[like]]++;
+        }
+        filmIds = new long[films];
+        usersByFilm = new long[films][];
+        for (int film = 0; film < films; film++) {
+            filmIds[film] = film + 1;
+            usersByFilm[film] = new long[likesPerFilm[film]];
+            likesPerFilm[film] = 0;
+        }
+        likedByUser = new ArrayList<>();
+        for (int like = 0; like < filmOfLike.length; like++) {
+            int film = filmOfLike[like];
+            long user = like / likesPerUser + 1;
+            usersByFilm[film][likesPerFilm[film]++] = user;
+            if (user <= 1000) {
+                if (likedByUser.size() < user) {
+                    likedByUser.add(new ArrayList<>());
+                }
+                likedByUser.get((int) user - 1).add((long) film + 1);
+            }
+        }
+        model = RecommendationModel.build(filmIds, usersByFilm, ForkJoinPool.commonPool());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public RecommendationModel build() {
+        return RecommendationModel.build(filmIds, usersByFilm, ForkJoinPool.commonPool());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Measurement(iterations = 5, time = 2)
+    public List<Long> recommend() {
+        next = (next + 1) % likedByUser.size();
+        return model.recommend(likedByUser.get(next), 10);
+    }
+}
@@ -0,0 +1,134 @@
+package ru.yandex.practicum.filmorate.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.impl.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Storage hot paths of the database and in-memory implementations on the same generated dataset.
+ * Write benchmarks undo their change, so the dataset stays the same through the trial.
+ * The storage-benchmark profile writes results in JMH JSON for comparison with the baseline
+ * in src/jmh/baseline/storage-benchmark.json, recorded in the environment described next to it:
+ * mvn -P jmh,storage-benchmark test-compile exec:exec
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmark {
+    @Param({"db", "in-memory"})
+    public String storage;
+    @Param({"1000", "10000"})
+    public int size;
+    @Param("10")
+    public int likesPerUser;
+    @Param("20")
+    public int friendsPerUser;
+
+    private EmbeddedDatabase database;
+    private FilmStorage filmStorage;
+    private UserStorage userStorage;
+    private BenchmarkData data;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if ("db".equals(storage)) {
+            database = BenchmarkDatabase.create();
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+            filmStorage = new FilmDbStorage(jdbcTemplate,
+                    new ReferenceDictionary(new GenreDbStorage(jdbcTemplate), new MpaDbStorage(jdbcTemplate)));
+            userStorage = new UserDbStorage(jdbcTemplate);
+        } else {
+            InMemoryUserStorage inMemoryUserStorage = new InMemoryUserStorage();
+            filmStorage = new InMemoryFilmStorage(inMemoryUserStorage);
+            userStorage = inMemoryUserStorage;
+        }
+        data = new BenchmarkData(size, size, likesPerUser, friendsPerUser);
+        data.load(filmStorage, userStorage);
+        random = new Random(BenchmarkData.SEED);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (database != null) {
+            database.shutdown();
+        }
+    }
+
+    @Benchmark
+    public Film getFilmById() {
+        return filmStorage.getFilmById(randomFilmId());
+    }
+
+    @Benchmark
+    public Film addAndDeleteFilm() {
+        Film film = filmStorage.addFilm(BenchmarkData.film("New film", random));
+        filmStorage.deleteFilm(film.getId());
+        return film;
+    }
+
+    @Benchmark
+    public Film updateFilm() {
+        long filmId = randomFilmId();
+        Film film = BenchmarkData.film("Film" + filmId, random);
+        film.setId(filmId);
+        return filmStorage.updateFilm(film);
+    }
+
+    @Benchmark
+    public List<Film> getBestFilms() {
+        return filmStorage.getBestFilms(10);
+    }
+
+    @Benchmark
+    public void addAndDeleteLike() {
+        long userId = randomUserId();
+        long filmId = randomFilmId();
+        if (filmStorage.getLikedFilmIds(userId).contains(filmId)) {
+            return;
+        }
+        filmStorage.addLike(filmId, userId);
+        filmStorage.deleteLike(filmId, userId);
+    }
+
+    @Benchmark
+    public List<User> getFriends() {
+        return userStorage.getFriends(randomUserId());
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends() {
+        return userStorage.getCommonFriends(randomUserId(), randomUserId());
+    }
+
+    @Benchmark
+    public void addAndDeleteFriend() {
+        long userId = randomUserId();
+        long friendId = randomUserId();
+        if (userId == friendId || userStorage.getUserById(userId).getFriendsId().contains(friendId)) {
+            return;
+        }
+        userStorage.addFriend(userId, friendId);
+        userStorage.deleteFriend(userId, friendId);
+    }
+
+    private long randomFilmId() {
+        return random.nextInt(data.films) + 1;
+    }
+
+    private long randomUserId() {
+        return random.nextInt(data.users) + 1;
+    }
+}
@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserBuilder;
+import ru.yandex.practicum.filmorate.storage.impl.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a single signup against USERS tables of different sizes. With the insert returning
+ * the generated key the cost should not depend on the number of existing users.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserSignupBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int existingUsers;
+
+    private EmbeddedDatabase database;
+    private UserDbStorage userDbStorage;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.create();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        BenchmarkDatabase.insertUsers(jdbcTemplate, existingUsers);
+        userDbStorage = new UserDbStorage(jdbcTemplate);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Benchmark
+    public User signup() {
+        long id = ++sequence;
+        return userDbStorage.addUser(UserBuilder.builder()
+                .login("signup" + id)
+                .email("signup" + id + "@mail.ru")
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build());
+    }
+}
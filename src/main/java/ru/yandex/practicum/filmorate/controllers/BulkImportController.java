@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.model.BulkImportResult;
+import ru.yandex.practicum.filmorate.service.BulkImportService;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+public class BulkImportController {
+    private final BulkImportService bulkImportService;
+
+    @Autowired
+    public BulkImportController(BulkImportService bulkImportService) {
+        this.bulkImportService = bulkImportService;
+    }
+
+    @PostMapping("/films/bulk")
+    public BulkImportResult importFilms(InputStream body) throws IOException {
+        return bulkImportService.importFilms(body);
+    }
+
+    @PostMapping("/users/bulk")
+    public BulkImportResult importUsers(InputStream body) throws IOException {
+        return bulkImportService.importUsers(body);
+    }
+}
@@ -2,14 +2,23 @@ package ru.yandex.practicum.filmorate.controllers;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.adapters.NdjsonAdapter;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilteredFilms;
+import ru.yandex.practicum.filmorate.service.FilmSearchIndex;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
 import javax.validation.Valid;
 import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 @Validated
 @RestController
@@ -17,17 +26,33 @@ import java.util.List;
 @Slf4j
 public class FilmController {
     private final FilmService filmService;
+    private final NdjsonAdapter ndjsonAdapter;
 
     @Autowired
-    public FilmController(FilmService filmService) {
+    public FilmController(FilmService filmService, NdjsonAdapter ndjsonAdapter) {
         this.filmService = filmService;
+        this.ndjsonAdapter = ndjsonAdapter;
     }
 
+    /**
+     * All films in one response, kept for the existing clients of this endpoint. Large lists are read
+     * with {@code ?limit=} pages of at most 1000 films or as an NDJSON stream with {@code ?stream=true}.
+     */
     @GetMapping
     public Collection<Film> findAll() {
         return filmService.getFilms();
     }
 
+    @GetMapping(params = {"limit", "stream!=true"})
+    public List<Film> findPage(@RequestParam int limit, @RequestParam(defaultValue = "0") long after) {
+        return filmService.getFilms(after, limit);
+    }
+
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        return ndjsonAdapter.stream(filmService::streamFilms);
+    }
+
     @PostMapping
     public Film create(@Valid @RequestBody Film film) {
         return filmService.addFilm(film);
@@ -38,6 +63,24 @@ public class FilmController {
         return filmService.updateFilm(film);
     }
 
+    @GetMapping("/search")
+    public List<Film> search(@RequestParam String q,
+                             @RequestParam(defaultValue = "name,description") Set<String> by,
+                             @RequestParam(defaultValue = "10") int limit) {
+        return filmService.searchFilms(q, parseSearchFields(by), limit);
+    }
+
+    @GetMapping("/filter")
+    public FilteredFilms filter(@RequestParam(defaultValue = "") Set<Long> genre,
+                                @RequestParam(defaultValue = "") Set<Long> mpa,
+                                @RequestParam(required = false) String year,
+                                @RequestParam(defaultValue = "id") String sort,
+                                @RequestParam(defaultValue = "100") int limit) {
+        Integer[] years = parseYearRange(year);
+        boolean popular = parseSort(sort);
+        return filmService.filterFilms(genre, mpa, years[0], years[1], popular, limit);
+    }
+
     @GetMapping("/{id}")
     public Film getFilmById(@PathVariable long id) {
         return filmService.getFilmById(id);
@@ -48,6 +91,13 @@ public class FilmController {
         filmService.deleteFilm(id);
     }
 
+    @GetMapping("/{id}/likes")
+    public List<Long> getLikes(@PathVariable long id,
+                               @RequestParam(defaultValue = "0") long after,
+                               @RequestParam(defaultValue = "100") int limit) {
+        return filmService.getLikes(id, after, limit);
+    }
+
     @PutMapping("/{id}/like/{userId}")
     public void addLike(@PathVariable(value = "id") long id, @PathVariable(value = "userId") long userId) {
         filmService.addLike(id, userId);
@@ -59,7 +109,52 @@ public class FilmController {
     }
 
     @GetMapping("/popular")
-    public List<Film> getBestFilms(@RequestParam(defaultValue = "10") int count) {
-        return filmService.getBestFilms(count);
+    public List<Film> getBestFilms(@RequestParam(defaultValue = "10") int count,
+                                   @RequestParam(required = false) Long genreId,
+                                   @RequestParam(required = false) Integer year) {
+        return filmService.getBestFilms(count, genreId, year);
+    }
+
+    private Set<FilmSearchIndex.Field> parseSearchFields(Set<String> by) {
+        Set<FilmSearchIndex.Field> fields = EnumSet.noneOf(FilmSearchIndex.Field.class);
+        for (String field : by) {
+            try {
+                fields.add(FilmSearchIndex.Field.valueOf(field.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new ValidationException("Unknown search field: " + field);
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Accepts a single year ("1999") or an inclusive range with optional bounds ("1999..2005", "..2005").
+     */
+    private Integer[] parseYearRange(String year) {
+        if (year == null || year.isBlank()) {
+            return new Integer[2];
+        }
+        try {
+            int separator = year.indexOf("..");
+            if (separator < 0) {
+                int value = Integer.parseInt(year.trim());
+                return new Integer[]{value, value};
+            }
+            String from = year.substring(0, separator).trim();
+            String to = year.substring(separator + 2).trim();
+            return new Integer[]{from.isEmpty() ? null : Integer.valueOf(from), to.isEmpty() ? null : Integer.valueOf(to)};
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Wrong year range: " + year);
+        }
+    }
+
+    private boolean parseSort(String sort) {
+        if ("popular".equals(sort)) {
+            return true;
+        }
+        if ("id".equals(sort)) {
+            return false;
+        }
+        throw new ValidationException("Unknown sort: " + sort);
     }
 }
@@ -2,8 +2,11 @@ package ru.yandex.practicum.filmorate.controllers;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.adapters.NdjsonAdapter;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.UserService;
 
@@ -17,17 +20,33 @@ import java.util.List;
 @Slf4j
 public class UserController {
     private final UserService userService;
+    private final NdjsonAdapter ndjsonAdapter;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, NdjsonAdapter ndjsonAdapter) {
         this.userService = userService;
+        this.ndjsonAdapter = ndjsonAdapter;
     }
 
+    /**
+     * All users in one response, kept for the existing clients of this endpoint. Large lists are read
+     * with {@code ?limit=} pages of at most 1000 users or as an NDJSON stream with {@code ?stream=true}.
+     */
     @GetMapping
     public Collection<User> findAll() {
         return userService.getUsers();
     }
 
+    @GetMapping(params = {"limit", "stream!=true"})
+    public List<User> findPage(@RequestParam int limit, @RequestParam(defaultValue = "0") long after) {
+        return userService.getUsers(after, limit);
+    }
+
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        return ndjsonAdapter.stream(userService::streamUsers);
+    }
+
     @PostMapping
     public User create(@Valid @RequestBody User user) {
         return userService.addUser(user);
@@ -67,4 +86,9 @@ public class UserController {
     public List<User> getCommonFriends(@PathVariable long id, @PathVariable long otherId) {
         return userService.getCommonFriends(id, otherId);
     }
+
+    @GetMapping("/{id}/friends/suggestions")
+    public List<User> getFriendSuggestions(@PathVariable long id, @RequestParam(defaultValue = "10") int limit) {
+        return userService.getFriendSuggestions(id, limit);
+    }
 }
@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Times every call of a storage bean as {@code filmorate.storage.calls}, tagged by storage interface,
+ * implementation (db or in-memory), method and thrown exception, with a percentile histogram.
+ */
+@Aspect
+@Component
+public class StorageMetricsAspect {
+    private final MeterRegistry meterRegistry;
+
+    public StorageMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * ru.yandex.practicum.filmorate.storage.*Storage+.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Class<?> targetClass = joinPoint.getTarget().getClass();
+        String exception = "none";
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("filmorate.storage.calls")
+                    .tag("storage", storageName(targetClass))
+                    .tag("implementation", targetClass.getSimpleName().startsWith("InMemory") ? "in-memory" : "db")
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("exception", exception)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    private static String storageName(Class<?> targetClass) {
+        return Arrays.stream(targetClass.getInterfaces())
+                .map(Class::getSimpleName)
+                .filter(name -> name.endsWith("Storage"))
+                .findFirst()
+                .orElse(targetClass.getSimpleName());
+    }
+}
@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Data;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BulkImportResult {
+    private long imported;
+    private long failed;
+    private final List<RecordError> errors = new ArrayList<>();
+
+    @Value
+    public static class RecordError {
+        long line;
+        String message;
+    }
+}
@@ -1,5 +1,7 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import ru.yandex.practicum.filmorate.exceptions.EntityNotFoundException;
@@ -12,10 +14,18 @@ import javax.validation.constraints.Size;
 import java.time.LocalDate;
 import java.util.*;
 
+/**
+ * Responses carry only {@code likesCount}; the ids of users who liked a film are paged through
+ * {@code GET /films/{id}/likes}, and the database storage loads them into {@code idUsersLike} only on request.
+ */
 @FilmValid
 @Data
 public class Film {
-    private Set<Long> idUsersLike = new HashSet<>();
+    @JsonIgnore
+    private LongIdSet idUsersLike = new LongIdSet();
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @EqualsAndHashCode.Exclude
+    private volatile long likesCount;
     @EqualsAndHashCode.Exclude
     private long id;
     @NotNull @NotBlank
@@ -29,14 +39,34 @@ public class Film {
     private Mpa mpa;
     private Set<Genre> genres = new TreeSet<>(Comparator.comparing(Genre::getId));
 
-    public void addLike(long id) {
-        idUsersLike.add(id);
+    public synchronized void setIdUsersLike(Set<Long> idUsersLike) {
+        this.idUsersLike = new LongIdSet(idUsersLike);
+        likesCount = this.idUsersLike.size();
+    }
+
+    /**
+     * Takes over the likes of the stored version of this film, since a film read from a request never has them.
+     */
+    public synchronized void keepLikesOf(Film stored) {
+        synchronized (stored) {
+            idUsersLike = stored.idUsersLike;
+            likesCount = stored.likesCount;
+        }
+    }
+
+    public synchronized boolean addLike(long id) {
+        if (!idUsersLike.add(id)) {
+            return false;
+        }
+        likesCount++;
+        return true;
     }
-    public void deleteLike(long id) {
-        if (!idUsersLike.contains(id)) {
+
+    public synchronized void deleteLike(long id) {
+        if (!idUsersLike.remove(id)) {
             throw new EntityNotFoundException("Film not found!");
         }
-        idUsersLike.remove(id);
+        likesCount--;
     }
 
     public Map<String,Object> toMap() {
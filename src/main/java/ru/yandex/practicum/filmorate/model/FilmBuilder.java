@@ -6,12 +6,11 @@ import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.time.LocalDate;
 import java.util.Comparator;
-import java.util.HashSet;
 import java.util.Set;
 import java.util.TreeSet;
 
 public final class FilmBuilder {
-    private Set<Long> idUsersLike = new HashSet<>();
+    private Set<Long> idUsersLike = new LongIdSet();
     private long id;
     private Mpa mpa;
     private Set<Genre> genres = new TreeSet<>(Comparator.comparing(Genre::getId));
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Value;
+
+import java.util.Set;
+
+/**
+ * Number of likes of a film together with the genres and release year its popular lists are scoped by.
+ */
+@Value
+public class FilmPopularity {
+    long filmId;
+    long likes;
+    Integer year;
+    Set<Long> genreIds;
+}
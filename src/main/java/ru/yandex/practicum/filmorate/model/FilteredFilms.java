@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Value;
+
+import java.util.List;
+import java.util.Map;
+
+@Value
+public class FilteredFilms {
+    List<Film> films;
+    int total;
+    Map<Long, Integer> genreCounts;
+    Map<Long, Integer> mpaCounts;
+    Map<Long, Integer> yearCounts;
+}
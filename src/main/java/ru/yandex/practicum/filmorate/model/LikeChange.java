@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Value;
+
+/**
+ * A like ({@code liked = true}) or an unlike of a film waiting to be written by the like write-behind.
+ */
+@Value
+public class LikeChange {
+    long filmId;
+    long userId;
+    boolean liked;
+}
@@ -8,14 +8,15 @@ import javax.validation.constraints.Email;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import java.time.LocalDate;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 @UserValid
 @Data
 public class User {
     @EqualsAndHashCode.Exclude
-    private Set<Long> friendsId = new HashSet<>();
+    private LongIdSet friendsId = new LongIdSet();
     @EqualsAndHashCode.Exclude
     private long id;
     @NotNull @NotBlank
@@ -25,14 +26,33 @@ public class User {
     private final String email;
     private final LocalDate birthday;
 
+    public void setFriendsId(Set<Long> friendsId) {
+        this.friendsId = new LongIdSet(friendsId);
+    }
+
+    /**
+     * Takes over the friends of the stored version of this user, so an update does not drop them.
+     */
+    public void keepFriendsOf(User stored) {
+        friendsId = stored.friendsId;
+    }
+
     public void addFriend(long id) {
         friendsId.add(id);
     }
 
     public void deleteFriend(long id) {
-        if (!friendsId.contains(id)) {
+        if (!friendsId.remove(id)) {
             throw new EntityNotFoundException("User not found!");
         }
-        friendsId.remove(id);
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> values = new HashMap<>();
+        values.put("USER_LOGIN", login);
+        values.put("USER_NAME", name);
+        values.put("EMAIL", email);
+        values.put("BIRTHDAY", birthday);
+        return values;
     }
 }
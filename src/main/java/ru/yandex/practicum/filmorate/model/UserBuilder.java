@@ -4,11 +4,10 @@ import javax.validation.constraints.Email;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import java.time.LocalDate;
-import java.util.HashSet;
 import java.util.Set;
 
 public final class UserBuilder {
-    private Set<Long> friendsId = new HashSet<>();
+    private Set<Long> friendsId = new LongIdSet();
     private long id;
     private String name;
     private @NotNull @NotBlank String login;
@@ -0,0 +1,196 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.BulkImportResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.ValidationException;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Imports NDJSON catalogs record by record: records are read one at a time from a single streaming
+ * parser and validated on their own, and valid records are written in JDBC batches, so memory depends
+ * on the batch size only, however long the input or any of its lines is.
+ * <p>
+ * Errors are reported with the line the parser was at. A record that is valid JSON but cannot be bound
+ * is skipped; after a syntax error record boundaries are lost, so the rest of the input is not read.
+ */
+@Service
+@Slf4j
+public class BulkImportService {
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final PopularFilmsLeaderboard leaderboard;
+    private final FilmSearchIndex searchIndex;
+    private final FilmFacetIndex facetIndex;
+    private final Validator validator;
+    private final ObjectReader filmReader;
+    private final ObjectReader userReader;
+    private final int batchSize;
+
+    @Autowired
+    public BulkImportService(@Qualifier("filmDbStorage") FilmStorage filmStorage,
+                             @Qualifier("userDbStorage") UserStorage userStorage,
+                             PopularFilmsLeaderboard leaderboard,
+                             FilmSearchIndex searchIndex,
+                             FilmFacetIndex facetIndex,
+                             Validator validator,
+                             ObjectMapper objectMapper,
+                             @Value("${filmorate.bulk.batch-size:500}") int batchSize) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.leaderboard = leaderboard;
+        this.searchIndex = searchIndex;
+        this.facetIndex = facetIndex;
+        this.validator = validator;
+        this.filmReader = objectMapper.readerFor(Film.class);
+        this.userReader = objectMapper.readerFor(User.class);
+        this.batchSize = batchSize;
+    }
+
+    public BulkImportResult importFilms(InputStream inputStream) throws IOException {
+        BulkImportResult result = importRecords(inputStream, filmReader, this::validateFilm,
+                filmStorage::addFilms, filmStorage::addFilm);
+        leaderboard.invalidate();
+        searchIndex.invalidate();
+        facetIndex.invalidate();
+        return result;
+    }
+
+    public BulkImportResult importUsers(InputStream inputStream) throws IOException {
+        return importRecords(inputStream, userReader, this::validate, userStorage::addUsers, userStorage::addUser);
+    }
+
+    private <T> BulkImportResult importRecords(InputStream inputStream, ObjectReader reader,
+                                               Function<T, List<String>> validation,
+                                               Consumer<List<T>> batchWriter, Consumer<T> singleWriter)
+            throws IOException {
+        BulkImportResult result = new BulkImportResult();
+        List<T> batch = new ArrayList<>(batchSize);
+        List<Long> batchLines = new ArrayList<>(batchSize);
+        try (MappingIterator<T> records = reader.readValues(inputStream)) {
+            JsonParser parser = records.getParser();
+            while (true) {
+                long lineNumber = parser.getCurrentLocation().getLineNr();
+                T record;
+                try {
+                    if (!records.hasNextValue()) {
+                        break;
+                    }
+                    lineNumber = parser.getTokenLocation().getLineNr();
+                    record = records.nextValue();
+                } catch (JsonProcessingException e) {
+                    if (isSyntaxError(e)) {
+                        JsonLocation location = e.getLocation() == null ? parser.getCurrentLocation() : e.getLocation();
+                        reportError(result, location.getLineNr(), "Malformed JSON, import stopped: "
+                                + e.getOriginalMessage());
+                        break;
+                    }
+                    reportError(result, lineNumber, "Malformed JSON: " + e.getOriginalMessage());
+                    continue;
+                }
+                List<String> violations;
+                try {
+                    violations = validation.apply(record);
+                } catch (ValidationException e) {
+                    violations = List.of("Incorrect object");
+                }
+                if (!violations.isEmpty()) {
+                    reportError(result, lineNumber, String.join("; ", violations));
+                    continue;
+                }
+                batch.add(record);
+                batchLines.add(lineNumber);
+                if (batch.size() == batchSize) {
+                    writeBatch(result, batch, batchLines, batchWriter, singleWriter);
+                }
+            }
+        }
+        writeBatch(result, batch, batchLines, batchWriter, singleWriter);
+        log.debug("Bulk import finished: {} imported, {} failed", result.getImported(), result.getFailed());
+        return result;
+    }
+
+    /**
+     * Writes the batch at once; if the batch is rejected, its records are retried one by one
+     * to find and report the failing ones.
+     */
+    private <T> void writeBatch(BulkImportResult result, List<T> batch, List<Long> batchLines,
+                                Consumer<List<T>> batchWriter, Consumer<T> singleWriter) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            batchWriter.accept(batch);
+            result.setImported(result.getImported() + batch.size());
+        } catch (DataAccessException e) {
+            log.debug("Batch rejected, retrying {} records one by one", batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    singleWriter.accept(batch.get(i));
+                    result.setImported(result.getImported() + 1);
+                } catch (DataAccessException recordException) {
+                    reportError(result, batchLines.get(i), recordException.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        batch.clear();
+        batchLines.clear();
+    }
+
+    private static boolean isSyntaxError(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof JsonParseException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<String> validate(Object record) {
+        return validator.validate(record).stream()
+                .map(ConstraintViolation::getMessage)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private List<String> validateFilm(Film film) {
+        List<String> violations = validate(film);
+        if (film.getMpa() == null || film.getMpa().getId() == null) {
+            violations.add("Mpa is required");
+        }
+        return violations;
+    }
+
+    private void reportError(BulkImportResult result, long line, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add(new BulkImportResult.RecordError(line, message));
+        }
+    }
+}
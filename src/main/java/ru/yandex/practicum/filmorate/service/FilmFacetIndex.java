@@ -0,0 +1,189 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Bitmap indexes of films by genre, MPA and release year, one {@link BitSet} per facet value
+ * with film ids as bit positions. Filters are intersections of bitmaps, facet counts are cardinalities
+ * of the result intersected with every value's bitmap. For 1M films and ~150 distinct values
+ * the bitmaps take about 20 MB.
+ */
+@Component
+@Slf4j
+public class FilmFacetIndex {
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final BitSet films = new BitSet();
+    private final Map<Long, BitSet> genres = new HashMap<>();
+    private final Map<Long, BitSet> mpa = new HashMap<>();
+    private final Map<Long, BitSet> years = new HashMap<>();
+    private boolean loaded;
+
+    public boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return loaded;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the index from all films, {@code source} passes every film to the consumer.
+     */
+    public void load(Consumer<Consumer<Film>> source) {
+        lock.writeLock().lock();
+        try {
+            films.clear();
+            genres.clear();
+            mpa.clear();
+            years.clear();
+            source.accept(this::index);
+            loaded = true;
+            log.debug("Facet index loaded with {} films", films.cardinality());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops the index, the next filter reloads it from the storage.
+     */
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            loaded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a new film or replaces the indexed facets of an existing one.
+     */
+    public void addFilm(Film film) {
+        lock.writeLock().lock();
+        try {
+            remove(bit(film.getId()));
+            index(film);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void deleteFilm(long filmId) {
+        lock.writeLock().lock();
+        try {
+            remove(bit(filmId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Films having any of the genres, any of the MPA ratings and a release year within the range,
+     * an empty set or a null bound means no restriction.
+     */
+    public BitSet filter(Set<Long> genreIds, Set<Long> mpaIds, Integer fromYear, Integer toYear) {
+        lock.readLock().lock();
+        try {
+            BitSet result = (BitSet) films.clone();
+            if (!genreIds.isEmpty()) {
+                result.and(union(genres, genreIds));
+            }
+            if (!mpaIds.isEmpty()) {
+                result.and(union(mpa, mpaIds));
+            }
+            if (fromYear != null || toYear != null) {
+                BitSet inRange = new BitSet();
+                years.forEach((year, bitmap) -> {
+                    if ((fromYear == null || year >= fromYear) && (toYear == null || year <= toYear)) {
+                        inRange.or(bitmap);
+                    }
+                });
+                result.and(inRange);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<Long, Integer> countGenres(BitSet selection) {
+        return count(genres, selection);
+    }
+
+    public Map<Long, Integer> countMpa(BitSet selection) {
+        return count(mpa, selection);
+    }
+
+    public Map<Long, Integer> countYears(BitSet selection) {
+        return count(years, selection);
+    }
+
+    private Map<Long, Integer> count(Map<Long, BitSet> facet, BitSet selection) {
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> counts = new TreeMap<>();
+            facet.forEach((value, bitmap) -> {
+                BitSet intersection = (BitSet) bitmap.clone();
+                intersection.and(selection);
+                int count = intersection.cardinality();
+                if (count > 0) {
+                    counts.put(value, count);
+                }
+            });
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static BitSet union(Map<Long, BitSet> facet, Set<Long> values) {
+        BitSet result = new BitSet();
+        for (Long value : values) {
+            BitSet bitmap = facet.get(value);
+            if (bitmap != null) {
+                result.or(bitmap);
+            }
+        }
+        return result;
+    }
+
+    private void index(Film film) {
+        int bit = bit(film.getId());
+        films.set(bit);
+        if (film.getGenres() != null) {
+            for (Genre genre : film.getGenres()) {
+                genres.computeIfAbsent(genre.getId(), id -> new BitSet()).set(bit);
+            }
+        }
+        if (film.getMpa() != null) {
+            mpa.computeIfAbsent(film.getMpa().getId(), id -> new BitSet()).set(bit);
+        }
+        if (film.getReleaseDate() != null) {
+            years.computeIfAbsent((long) film.getReleaseDate().getYear(), year -> new BitSet()).set(bit);
+        }
+    }
+
+    private void remove(int bit) {
+        if (!films.get(bit)) {
+            return;
+        }
+        films.clear(bit);
+        genres.values().forEach(bitmap -> bitmap.clear(bit));
+        mpa.values().forEach(bitmap -> bitmap.clear(bit));
+        years.values().forEach(bitmap -> bitmap.clear(bit));
+    }
+
+    private static int bit(long filmId) {
+        return Math.toIntExact(filmId);
+    }
+}
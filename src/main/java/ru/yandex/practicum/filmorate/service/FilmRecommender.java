@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Serves recommendations from an in-memory {@link RecommendationModel}. The model is rebuilt from all likes
+ * in the background and replaced atomically, requests keep using the previous model until then.
+ * The first build runs in its own thread after startup, so it does not hold up the other ready listeners;
+ * until it finishes, recommendations are empty.
+ */
+@Service
+@Slf4j
+public class FilmRecommender {
+    private final FilmStorage filmStorage;
+    private final AtomicReference<RecommendationModel> model = new AtomicReference<>(RecommendationModel.EMPTY);
+
+    @Autowired
+    public FilmRecommender(@Qualifier("filmDbStorage") FilmStorage filmStorage) {
+        this.filmStorage = filmStorage;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildInBackground() {
+        Thread builder = new Thread(() -> {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                log.error("Recommendation model was not built, the next scheduled rebuild retries", e);
+            }
+        }, "recommendation-builder");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    @Scheduled(cron = "${filmorate.recommendations.rebuild-cron:0 0 * * * *}")
+    public void rebuild() {
+        long start = System.nanoTime();
+        List<Long> filmIds = new ArrayList<>();
+        List<long[]> usersByFilm = new ArrayList<>();
+        filmStorage.streamFilms(film -> {
+            filmIds.add(film.getId());
+            usersByFilm.add(film.getIdUsersLike().toLongArray());
+        }, true);
+        RecommendationModel built = RecommendationModel.build(filmIds.stream().mapToLong(Long::longValue).toArray(),
+                usersByFilm.toArray(new long[0][]), ForkJoinPool.commonPool());
+        model.set(built);
+        log.info("Recommendation model rebuilt for {} films in {} ms", built.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public List<Long> recommend(Collection<Long> likedFilmIds, int limit) {
+        return model.get().recommend(likedFilmIds, limit);
+    }
+}
@@ -0,0 +1,282 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index over film names and descriptions, ranked with BM25.
+ * <p>
+ * Every indexed version of a film gets a new ordinal, postings only ever grow and stay sorted by ordinal.
+ * Updating or deleting a film leaves the old ordinal dead; dead postings are skipped while searching
+ * and dropped once they outnumber live films.
+ */
+@Component
+@Slf4j
+public class FilmSearchIndex {
+    public enum Field {
+        NAME,
+        DESCRIPTION
+    }
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Field[] FIELDS = Field.values();
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int MIN_DEAD_TO_COMPACT = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> ordinalsByFilmId = new HashMap<>();
+    private final List<Map<String, Postings>> postingsByField = new ArrayList<>();
+    private final long[] totalLengths = new long[FIELDS.length];
+    private long[] filmIds = new long[16];
+    private int[][] lengths = new int[FIELDS.length][16];
+    private int ordinals;
+    private boolean loaded;
+
+    public FilmSearchIndex() {
+        for (int i = 0; i < FIELDS.length; i++) {
+            postingsByField.add(new HashMap<>());
+        }
+    }
+
+    public boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return loaded;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the index from all films, {@code source} passes every film to the consumer.
+     */
+    public void load(Consumer<Consumer<Film>> source) {
+        lock.writeLock().lock();
+        try {
+            ordinalsByFilmId.clear();
+            postingsByField.forEach(Map::clear);
+            Arrays.fill(totalLengths, 0);
+            ordinals = 0;
+            source.accept(this::index);
+            loaded = true;
+            log.debug("Search index loaded with {} films", ordinalsByFilmId.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops the index, the next search reloads it from the storage.
+     */
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            loaded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a new film or replaces the indexed version of an existing one.
+     */
+    public void addFilm(Film film) {
+        lock.writeLock().lock();
+        try {
+            remove(film.getId());
+            index(film);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void deleteFilm(long filmId) {
+        lock.writeLock().lock();
+        try {
+            remove(filmId);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of films matching any term of the query, best BM25 score first, ties broken by film id.
+     */
+    public List<Long> search(String query, Set<Field> fields, int limit) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        lock.readLock().lock();
+        try {
+            int liveFilms = ordinalsByFilmId.size();
+            if (terms.isEmpty() || liveFilms == 0) {
+                return List.of();
+            }
+            float[] scores = new float[ordinals];
+            int[] matched = new int[ordinals];
+            int matchedCount = 0;
+            for (Field field : fields) {
+                double averageLength = Math.max(1.0, (double) totalLengths[field.ordinal()] / liveFilms);
+                int[] fieldLengths = lengths[field.ordinal()];
+                for (String term : terms) {
+                    Postings postings = postingsByField.get(field.ordinal()).get(term);
+                    if (postings == null) {
+                        continue;
+                    }
+                    double idf = Math.log(1 + (liveFilms - postings.size + 0.5) / (postings.size + 0.5));
+                    for (int i = 0; i < postings.size; i++) {
+                        int ordinal = postings.ordinals[i];
+                        if (!isLive(ordinal)) {
+                            continue;
+                        }
+                        int frequency = postings.frequencies[i];
+                        double norm = K1 * (1 - B + B * fieldLengths[ordinal] / averageLength);
+                        if (scores[ordinal] == 0) {
+                            matched[matchedCount++] = ordinal;
+                        }
+                        scores[ordinal] += (float) (idf * frequency * (K1 + 1) / (frequency + norm));
+                    }
+                }
+            }
+            return top(scores, matched, matchedCount, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private List<Long> top(float[] scores, int[] matched, int matchedCount, int limit) {
+        Comparator<Integer> ranking = Comparator.<Integer>comparingDouble(ordinal -> scores[ordinal]).reversed()
+                .thenComparingLong(ordinal -> filmIds[ordinal]);
+        PriorityQueue<Integer> top = new PriorityQueue<>(ranking.reversed());
+        for (int i = 0; i < matchedCount; i++) {
+            top.add(matched[i]);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<Integer> ranked = new ArrayList<>(top);
+        ranked.sort(ranking);
+        List<Long> result = new ArrayList<>(ranked.size());
+        ranked.forEach(ordinal -> result.add(filmIds[ordinal]));
+        return result;
+    }
+
+    private boolean isLive(int ordinal) {
+        Integer current = ordinalsByFilmId.get(filmIds[ordinal]);
+        return current != null && current == ordinal;
+    }
+
+    private void index(Film film) {
+        int ordinal = ordinals++;
+        if (ordinal == filmIds.length) {
+            filmIds = Arrays.copyOf(filmIds, ordinal * 2);
+            for (int f = 0; f < FIELDS.length; f++) {
+                lengths[f] = Arrays.copyOf(lengths[f], ordinal * 2);
+            }
+        }
+        filmIds[ordinal] = film.getId();
+        ordinalsByFilmId.put(film.getId(), ordinal);
+        indexField(Field.NAME, film.getName(), ordinal);
+        indexField(Field.DESCRIPTION, film.getDescription(), ordinal);
+    }
+
+    private void indexField(Field field, String text, int ordinal) {
+        List<String> tokens = tokenize(text);
+        lengths[field.ordinal()][ordinal] = tokens.size();
+        totalLengths[field.ordinal()] += tokens.size();
+        Map<String, Integer> frequencies = new HashMap<>();
+        tokens.forEach(token -> frequencies.merge(token, 1, Integer::sum));
+        Map<String, Postings> postings = postingsByField.get(field.ordinal());
+        frequencies.forEach((term, frequency) ->
+                postings.computeIfAbsent(term, t -> new Postings()).add(ordinal, frequency));
+    }
+
+    private void remove(long filmId) {
+        Integer ordinal = ordinalsByFilmId.remove(filmId);
+        if (ordinal != null) {
+            for (int f = 0; f < FIELDS.length; f++) {
+                totalLengths[f] -= lengths[f][ordinal];
+            }
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (ordinals - ordinalsByFilmId.size() > Math.max(MIN_DEAD_TO_COMPACT, ordinalsByFilmId.size())) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        int[] remap = new int[ordinals];
+        int live = 0;
+        for (int ordinal = 0; ordinal < ordinals; ordinal++) {
+            if (isLive(ordinal)) {
+                remap[ordinal] = live;
+                filmIds[live] = filmIds[ordinal];
+                for (int f = 0; f < FIELDS.length; f++) {
+                    lengths[f][live] = lengths[f][ordinal];
+                }
+                ordinalsByFilmId.put(filmIds[live], live);
+                live++;
+            } else {
+                remap[ordinal] = -1;
+            }
+        }
+        for (Map<String, Postings> postings : postingsByField) {
+            postings.values().forEach(p -> p.remap(remap));
+            postings.values().removeIf(p -> p.size == 0);
+        }
+        log.debug("Search index compacted from {} to {} ordinals", ordinals, live);
+        ordinals = live;
+    }
+
+    private static class Postings {
+        private int[] ordinals = new int[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        void add(int ordinal, int frequency) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            ordinals[size] = ordinal;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        void remap(int[] remap) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int ordinal = remap[ordinals[i]];
+                if (ordinal >= 0) {
+                    ordinals[kept] = ordinal;
+                    frequencies[kept] = frequencies[i];
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+    }
+}
@@ -3,50 +3,257 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmPopularity;
+import ru.yandex.practicum.filmorate.model.FilteredFilms;
+import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 
+import java.time.Year;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class FilmService {
+    private static final int STREAM_PAGE_SIZE = 500;
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final FilmStorage filmStorage;
+    private final PopularFilmsLeaderboard leaderboard;
+    private final FilmRecommender recommender;
+    private final FilmSearchIndex searchIndex;
+    private final FilmFacetIndex facetIndex;
+    private final LikeWriteBehind likeWriteBehind;
 
     @Autowired
-    public FilmService(@Qualifier("filmDbStorage") FilmStorage filmStorage) {
+    public FilmService(@Qualifier("filmDbStorage") FilmStorage filmStorage, PopularFilmsLeaderboard leaderboard,
+                       FilmRecommender recommender, FilmSearchIndex searchIndex, FilmFacetIndex facetIndex,
+                       LikeWriteBehind likeWriteBehind) {
         this.filmStorage = filmStorage;
+        this.leaderboard = leaderboard;
+        this.recommender = recommender;
+        this.searchIndex = searchIndex;
+        this.facetIndex = facetIndex;
+        this.likeWriteBehind = likeWriteBehind;
     }
 
     public Film addFilm(Film film) {
-        return filmStorage.addFilm(film);
+        Film addedFilm = filmStorage.addFilm(film);
+        leaderboard.addFilm(addedFilm.getId(), genreIds(addedFilm), releaseYear(addedFilm));
+        if (searchIndex.isLoaded()) {
+            searchIndex.addFilm(addedFilm);
+        }
+        if (facetIndex.isLoaded()) {
+            facetIndex.addFilm(addedFilm);
+        }
+        return addedFilm;
     }
 
+    @CacheEvict(cacheNames = "films", key = "#id")
     public void deleteFilm(long id) {
         filmStorage.deleteFilm(id);
+        leaderboard.deleteFilm(id);
+        searchIndex.deleteFilm(id);
+        facetIndex.deleteFilm(id);
     }
 
+    @CacheEvict(cacheNames = "films", key = "#film.id")
     public Film updateFilm(Film film) {
-        return filmStorage.updateFilm(film);
+        Film updatedFilm = filmStorage.updateFilm(film);
+        leaderboard.addFilm(updatedFilm.getId(), genreIds(updatedFilm), releaseYear(updatedFilm));
+        if (searchIndex.isLoaded()) {
+            searchIndex.addFilm(updatedFilm);
+        }
+        if (facetIndex.isLoaded()) {
+            facetIndex.addFilm(updatedFilm);
+        }
+        return updatedFilm;
     }
 
     public List<Film> getFilms() {
         return filmStorage.getFilms();
     }
 
+    public List<Film> getFilms(long afterId, int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Limit should be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return filmStorage.getFilms(afterId, limit);
+    }
+
+    /**
+     * Passes all films to the consumer in keyset pages, so a database connection is held only while a page
+     * is read and not while the consumer, e.g. a slow NDJSON download, processes it.
+     */
+    public void streamFilms(Consumer<Film> consumer) {
+        long afterId = 0;
+        List<Film> page;
+        do {
+            page = filmStorage.getFilms(afterId, STREAM_PAGE_SIZE);
+            page.forEach(consumer);
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == STREAM_PAGE_SIZE);
+    }
+
     public List<Film> getBestFilms(int count) {
-        return filmStorage.getBestFilms(count);
+        return getBestFilms(count, null, null);
+    }
+
+    public List<Film> getBestFilms(int count, Long genreId, Integer year) {
+        if (count < 0) {
+            throw new ValidationException("Count should be positive");
+        }
+        if (year != null && (year < Year.MIN_VALUE || year >= Year.MAX_VALUE)) {
+            throw new ValidationException("Year should be between " + Year.MIN_VALUE + " and " + (Year.MAX_VALUE - 1));
+        }
+        log.debug("Get {} best films of genre {} and year {}", count, genreId, year);
+        if (!leaderboard.isLoaded() && leaderboard.isLoading()) {
+            // LIKE_COUNT is indexed, so the storage answers while another request loads the leaderboard
+            return withPendingLikes(filmStorage.getBestFilms(count, genreId, year));
+        }
+        leaderboard.loadIfNeeded(this::filmPopularity);
+        return withPendingLikes(filmStorage.getFilmsByIds(leaderboard.getTop(count, genreId, year)));
+    }
+
+    public List<Film> getRecommendations(long userId, int limit) {
+        if (limit <= 0) {
+            throw new ValidationException("Limit should be positive");
+        }
+        List<Long> likedFilmIds = filmStorage.getLikedFilmIds(userId);
+        if (likeWriteBehind.isEnabled()) {
+            likedFilmIds = likeWriteBehind.likedFilmIds(userId, likedFilmIds);
+        }
+        List<Long> filmIds = recommender.recommend(likedFilmIds, limit);
+        log.debug("Get {} recommended films for user {}", filmIds.size(), userId);
+        return filmStorage.getFilmsByIds(filmIds);
+    }
+
+    public List<Film> searchFilms(String query, Set<FilmSearchIndex.Field> fields, int limit) {
+        if (limit <= 0) {
+            throw new ValidationException("Limit should be positive");
+        }
+        if (fields.isEmpty()) {
+            throw new ValidationException("Search fields should not be empty");
+        }
+        if (!searchIndex.isLoaded()) {
+            buildSearchIndex();
+        }
+        List<Long> filmIds = searchIndex.search(query, fields, limit);
+        log.debug("Found {} films by query '{}'", filmIds.size(), query);
+        return filmStorage.getFilmsByIds(filmIds);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildSearchIndex() {
+        searchIndex.load(filmStorage::streamFilms);
+    }
+
+    /**
+     * Films matching all given facets, ordered by id or by popularity, with counts of every facet value
+     * among all matching films.
+     */
+    public FilteredFilms filterFilms(Set<Long> genreIds, Set<Long> mpaIds, Integer fromYear, Integer toYear,
+                                     boolean popular, int limit) {
+        if (limit <= 0) {
+            throw new ValidationException("Limit should be positive");
+        }
+        if (!facetIndex.isLoaded()) {
+            facetIndex.load(filmStorage::streamFilms);
+        }
+        BitSet matched = facetIndex.filter(genreIds, mpaIds, fromYear, toYear);
+        List<Long> filmIds;
+        if (popular) {
+            leaderboard.loadIfNeeded(this::filmPopularity);
+            filmIds = leaderboard.getTop(limit, filmId -> matched.get(Math.toIntExact(filmId)));
+        } else {
+            filmIds = matched.stream().limit(limit).mapToObj(filmId -> (long) filmId).collect(Collectors.toList());
+        }
+        log.debug("Filtered {} films, returning {}", matched.cardinality(), filmIds.size());
+        return new FilteredFilms(filmStorage.getFilmsByIds(filmIds), matched.cardinality(),
+                facetIndex.countGenres(matched), facetIndex.countMpa(matched), facetIndex.countYears(matched));
+    }
+
+    public void reloadLeaderboard() {
+        leaderboard.load(this::filmPopularity);
     }
+
+    private void filmPopularity(Consumer<FilmPopularity> consumer) {
+        filmStorage.getFilmPopularity().forEach(consumer);
+    }
+
+    @Cacheable(cacheNames = "films", key = "#id")
     public Film getFilmById(long id) {
-        return filmStorage.getFilmById(id);
+        return withPendingLikes(List.of(filmStorage.getFilmById(id))).get(0);
+    }
+
+    public List<Long> getLikes(long filmId, long afterUserId, int limit) {
+        List<Long> userIds = filmStorage.getLikes(filmId, afterUserId, limit);
+        if (likeWriteBehind.isEnabled()) {
+            userIds = likeWriteBehind.likes(filmId, afterUserId, limit, userIds);
+        }
+        return userIds;
     }
 
+    @CacheEvict(cacheNames = "films", key = "#filmId")
     public void addLike(long filmId, long userId) {
-        filmStorage.addLike(filmId, userId);
+        if (likeWriteBehind.isEnabled()) {
+            likeWriteBehind.addLike(filmId, userId);
+            return;
+        }
+        leaderboard.changeLikes(() -> {
+            if (filmStorage.addLike(filmId, userId)) {
+                leaderboard.addLike(filmId);
+            }
+        });
     }
 
+    @CacheEvict(cacheNames = "films", key = "#filmId")
     public void deleteLike(long filmId, long userId) {
-        filmStorage.deleteLike(filmId, userId);
+        if (likeWriteBehind.isEnabled()) {
+            likeWriteBehind.deleteLike(filmId, userId);
+            return;
+        }
+        leaderboard.changeLikes(() -> {
+            filmStorage.deleteLike(filmId, userId);
+            leaderboard.deleteLike(filmId);
+        });
+    }
+
+    /**
+     * Adds likes that are still queued by the write-behind to the like counts read from the storage.
+     */
+    private List<Film> withPendingLikes(List<Film> films) {
+        if (likeWriteBehind.isEnabled()) {
+            for (Film film : films) {
+                long delta = likeWriteBehind.likesCountDelta(film.getId());
+                if (delta != 0) {
+                    film.setLikesCount(film.getLikesCount() + delta);
+                }
+            }
+        }
+        return films;
+    }
+
+    private static Set<Long> genreIds(Film film) {
+        if (film.getGenres() == null) {
+            return Set.of();
+        }
+        return film.getGenres().stream().map(Genre::getId).collect(Collectors.toSet());
+    }
+
+    private static Integer releaseYear(Film film) {
+        return film.getReleaseDate() == null ? null : film.getReleaseDate().getYear();
     }
 }
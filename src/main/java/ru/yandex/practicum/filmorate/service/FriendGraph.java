@@ -0,0 +1,176 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.LongIdSet;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Friend ids of every user kept in memory as sorted {@code long[]} adjacency lists, so common friends
+ * are a linear merge of two arrays instead of a join over FRIENDS.
+ * Arrays are replaced on every change and never modified afterwards, callers must not modify them either.
+ * <p>
+ * An edge costs 8 bytes plus about 70 bytes per user for the array header and the map entry:
+ * 10M edges over 1M users take ~150 MB (~15 bytes per edge), while the same graph as
+ * {@code HashSet<Long>} per user takes ~600 MB (~60 bytes per edge).
+ */
+@Component
+@Slf4j
+public class FriendGraph {
+    public static final int MAX_SUGGESTIONS = 100;
+    static final int VISITED_FRIENDS_LIMIT = 500;
+    static final int FANOUT_LIMIT = 500;
+
+    private static final long[] EMPTY = new long[0];
+    private static final Comparator<Suggestion> RANKING = Comparator.comparingInt(Suggestion::getMutualFriends)
+            .reversed()
+            .thenComparingLong(Suggestion::getUserId);
+
+    private final Map<Long, long[]> adjacency = new HashMap<>();
+    private boolean loaded;
+
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Rebuilds the graph from users with their friend ids, {@code source} passes every user to the consumer.
+     */
+    public synchronized void load(Consumer<Consumer<User>> source) {
+        adjacency.clear();
+        long[] edges = new long[1];
+        source.accept(user -> {
+            setFriends(user.getId(), user.getFriendsId());
+            edges[0] += user.getFriendsId().size();
+        });
+        loaded = true;
+        log.debug("Friend graph loaded with {} users and {} edges", adjacency.size(), edges[0]);
+    }
+
+    /**
+     * Drops the graph, the next read reloads it from the storage.
+     */
+    public synchronized void invalidate() {
+        loaded = false;
+    }
+
+    public synchronized void setFriends(long userId, Collection<Long> friendIds) {
+        if (friendIds == null || friendIds.isEmpty()) {
+            adjacency.remove(userId);
+            return;
+        }
+        long[] friends;
+        if (friendIds instanceof LongIdSet) {
+            friends = ((LongIdSet) friendIds).toLongArray();
+            Arrays.sort(friends);
+        } else {
+            friends = friendIds.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+        }
+        adjacency.put(userId, friends);
+    }
+
+    public synchronized long[] getFriends(long userId) {
+        return adjacency.getOrDefault(userId, EMPTY);
+    }
+
+    public long[] getCommonFriends(long userId, long otherUserId) {
+        long[] friends;
+        long[] otherFriends;
+        synchronized (this) {
+            friends = getFriends(userId);
+            otherFriends = getFriends(otherUserId);
+        }
+        return intersect(friends, otherFriends);
+    }
+
+    static long[] intersect(long[] first, long[] second) {
+        long[] result = new long[Math.min(first.length, second.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                result[size++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Friends of friends ranked by the number of mutual friends, then by id, at most {@link #MAX_SUGGESTIONS}.
+     * The traversal is bounded: a user with more than {@link #VISITED_FRIENDS_LIMIT} friends is sampled
+     * evenly, and so are friend lists longer than {@link #FANOUT_LIMIT}, which keeps a single call under
+     * VISITED_FRIENDS_LIMIT * FANOUT_LIMIT candidates. Results are not cached: a friendship changes the
+     * suggestions of everyone who has either user as a friend, and the bounded traversal over the in-memory
+     * graph is cheaper than tracking those users.
+     */
+    public List<Long> getSuggestions(long userId) {
+        long[] friends;
+        long[][] friendsOfFriends;
+        synchronized (this) {
+            friends = getFriends(userId);
+            int step = step(friends.length, VISITED_FRIENDS_LIMIT);
+            friendsOfFriends = new long[(friends.length + step - 1) / step][];
+            for (int i = 0; i < friendsOfFriends.length; i++) {
+                friendsOfFriends[i] = getFriends(friends[i * step]);
+            }
+        }
+
+        int size = 0;
+        for (long[] ids : friendsOfFriends) {
+            size += Math.min(ids.length, FANOUT_LIMIT);
+        }
+        long[] candidates = new long[size];
+        size = 0;
+        for (long[] ids : friendsOfFriends) {
+            int step = step(ids.length, FANOUT_LIMIT);
+            for (int i = 0; i < ids.length && size < candidates.length; i += step) {
+                candidates[size++] = ids[i];
+            }
+        }
+        Arrays.sort(candidates, 0, size);
+
+        PriorityQueue<Suggestion> top = new PriorityQueue<>(RANKING.reversed());
+        for (int from = 0; from < size; ) {
+            long candidate = candidates[from];
+            int to = from;
+            while (to < size && candidates[to] == candidate) {
+                to++;
+            }
+            if (candidate != userId && Arrays.binarySearch(friends, candidate) < 0) {
+                top.add(new Suggestion(candidate, to - from));
+                if (top.size() > MAX_SUGGESTIONS) {
+                    top.poll();
+                }
+            }
+            from = to;
+        }
+
+        List<Suggestion> ranked = new ArrayList<>(top);
+        ranked.sort(RANKING);
+        List<Long> suggestions = new ArrayList<>(ranked.size());
+        ranked.forEach(suggestion -> suggestions.add(suggestion.getUserId()));
+        log.debug("Found {} friend suggestions for user {} among {} candidates", suggestions.size(), userId, size);
+        return Collections.unmodifiableList(suggestions);
+    }
+
+    private static int step(int length, int limit) {
+        return length <= limit ? 1 : (length + limit - 1) / limit;
+    }
+
+    @Value
+    private static class Suggestion {
+        long userId;
+        int mutualFriends;
+    }
+}
@@ -3,9 +3,11 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.storage.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.impl.ReferenceDictionary;
 
 import java.util.List;
 
@@ -13,25 +15,38 @@ import java.util.List;
 @Slf4j
 public class GenreService {
     private final GenreStorage genreStorage;
+    private final ReferenceDictionary dictionary;
+    private final FilmFacetIndex facetIndex;
+    private final PopularFilmsLeaderboard leaderboard;
 
     @Autowired
-    public GenreService(@Qualifier("genreDbStorage") GenreStorage genreStorage) {
+    public GenreService(@Qualifier("genreDbStorage") GenreStorage genreStorage, ReferenceDictionary dictionary,
+                        FilmFacetIndex facetIndex, PopularFilmsLeaderboard leaderboard) {
         this.genreStorage = genreStorage;
+        this.dictionary = dictionary;
+        this.facetIndex = facetIndex;
+        this.leaderboard = leaderboard;
     }
 
     public Genre getGenreById(long id) {
-        return genreStorage.getGenreById(id);
+        return dictionary.getGenre(id);
     }
 
     public List<Genre> getAllGenres() {
-        return genreStorage.getAllGenres();
+        return dictionary.getAllGenres();
     }
 
+    @CacheEvict(cacheNames = "films", allEntries = true)
     public void addGenreToFilmById(long filmId, long genreId) {
         genreStorage.addGenreToFilmById(filmId, genreId);
+        facetIndex.invalidate();
+        leaderboard.invalidate();
     }
 
+    @CacheEvict(cacheNames = "films", allEntries = true)
     public void deleteGenreOfFilmById(long filmId, long genreId) {
         genreStorage.deleteGenreOfFilmById(filmId, genreId);
+        facetIndex.invalidate();
+        leaderboard.invalidate();
     }
 }
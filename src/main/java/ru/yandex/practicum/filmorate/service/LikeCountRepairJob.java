@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.storage.impl.FilmDbStorage;
+
+@Service
+@Slf4j
+public class LikeCountRepairJob {
+    private final FilmDbStorage filmDbStorage;
+    private final PopularFilmsLeaderboard leaderboard;
+
+    public LikeCountRepairJob(FilmDbStorage filmDbStorage, PopularFilmsLeaderboard leaderboard) {
+        this.filmDbStorage = filmDbStorage;
+        this.leaderboard = leaderboard;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${filmorate.likes.repair-cron:0 0 4 * * *}")
+    public void repairLikeCounts() {
+        int repaired = filmDbStorage.recalculateLikeCounts();
+        if (repaired > 0) {
+            log.warn("Like counters of {} films were out of sync with LIKES and have been repaired", repaired);
+        }
+        // the leaderboard is moved incrementally and can drift from the counters, the next read reloads it
+        leaderboard.invalidate();
+    }
+}
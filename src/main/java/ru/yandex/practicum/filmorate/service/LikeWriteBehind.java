@@ -0,0 +1,350 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exceptions.EntityNotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.ServiceUnavailableException;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Optional asynchronous path for likes, enabled by {@code filmorate.likes.write-behind.enabled}.
+ * <p>
+ * Likes and unlikes are checked against the stored and pending state and kept as pending changes,
+ * one per film and user: a like followed by an unlike of the same pair cancels out before reaching
+ * the database. A background writer flushes pending changes in JDBC batches once a batch is full
+ * or the flush interval passes. When {@code capacity} changes are pending, callers wait up to the offer
+ * timeout and then get a 503. On shutdown the writer drains everything that is pending.
+ * <p>
+ * Until a change is flushed, the service lays pending changes over what it reads from the storage,
+ * so the liking user sees their own likes right away. The leaderboard is moved here once a change is
+ * written, in the same {@link PopularFilmsLeaderboard#changeLikes} section as the write: a leaderboard
+ * reload while changes are pending neither loses nor double counts them, and the popular films pick up
+ * a like within the flush interval.
+ */
+@Component
+@Slf4j
+public class LikeWriteBehind {
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 30_000;
+
+    private final FilmStorage filmStorage;
+    private final PopularFilmsLeaderboard leaderboard;
+    private final boolean enabled;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long offerTimeoutMillis;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition batchReady = lock.newCondition();
+    private final Map<LikeKey, Boolean> pending = new LinkedHashMap<>();
+    private final Map<LikeKey, Boolean> inFlight = new HashMap<>();
+    /**
+     * Sum of +1 for likes and -1 for unlikes in {@code pending} and {@code inFlight}, per film.
+     */
+    private final Map<Long, Long> likesCountDeltas = new HashMap<>();
+    private long flushes;
+    private boolean stopping;
+    private Thread writer;
+
+    @Autowired
+    public LikeWriteBehind(@Qualifier("filmDbStorage") FilmStorage filmStorage, PopularFilmsLeaderboard leaderboard,
+                           @Value("${filmorate.likes.write-behind.enabled:false}") boolean enabled,
+                           @Value("${filmorate.likes.write-behind.capacity:10000}") int capacity,
+                           @Value("${filmorate.likes.write-behind.batch-size:500}") int batchSize,
+                           @Value("${filmorate.likes.write-behind.flush-interval-ms:100}") long flushIntervalMillis,
+                           @Value("${filmorate.likes.write-behind.offer-timeout-ms:1000}") long offerTimeoutMillis) {
+        this.filmStorage = filmStorage;
+        this.leaderboard = leaderboard;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        writer = new Thread(this::writeLoop, "like-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Like write-behind started with capacity {} and batch size {}", capacity, batchSize);
+    }
+
+    /**
+     * Stops accepting changes and waits until the writer has flushed all pending ones.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            stopping = true;
+            batchReady.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        writer.join(SHUTDOWN_TIMEOUT_MILLIS);
+        if (writer.isAlive()) {
+            log.error("Like write-behind did not drain in {} ms, {} changes are lost", SHUTDOWN_TIMEOUT_MILLIS,
+                    pendingCount());
+        }
+    }
+
+    /**
+     * @return false if the user already likes the film
+     */
+    public boolean addLike(long filmId, long userId) {
+        return change(filmId, userId, true);
+    }
+
+    /**
+     * @throws EntityNotFoundException if the user does not like the film
+     */
+    public void deleteLike(long filmId, long userId) {
+        change(filmId, userId, false);
+    }
+
+    public int pendingCount() {
+        lock.lock();
+        try {
+            return pending.size() + inFlight.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Change of the film's like count by changes that are not in the storage yet.
+     */
+    public long likesCountDelta(long filmId) {
+        lock.lock();
+        try {
+            return likesCountDeltas.getOrDefault(filmId, 0L);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Film ids the user likes, given the ones read from the storage.
+     */
+    public List<Long> likedFilmIds(long userId, List<Long> storedFilmIds) {
+        Set<Long> filmIds = new LinkedHashSet<>(storedFilmIds);
+        forEachChange((key, liked) -> {
+            if (key.userId == userId) {
+                if (liked) {
+                    filmIds.add(key.filmId);
+                } else {
+                    filmIds.remove(key.filmId);
+                }
+            }
+        });
+        return new ArrayList<>(filmIds);
+    }
+
+    /**
+     * A page of user ids who like the film, given the page read from the storage with the same bounds.
+     */
+    public List<Long> likes(long filmId, long afterUserId, int limit, List<Long> storedUserIds) {
+        long lastUserId = storedUserIds.size() < limit ? Long.MAX_VALUE : storedUserIds.get(storedUserIds.size() - 1);
+        TreeSet<Long> userIds = new TreeSet<>(storedUserIds);
+        forEachChange((key, liked) -> {
+            if (key.filmId == filmId && key.userId > afterUserId && key.userId <= lastUserId) {
+                if (liked) {
+                    userIds.add(key.userId);
+                } else {
+                    userIds.remove(key.userId);
+                }
+            }
+        });
+        List<Long> page = new ArrayList<>(Math.min(limit, userIds.size()));
+        for (Long userId : userIds) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(userId);
+        }
+        return page;
+    }
+
+    private boolean change(long filmId, long userId, boolean liked) {
+        LikeKey key = new LikeKey(filmId, userId);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(offerTimeoutMillis);
+        Boolean stored = null;
+        long storedGeneration = -1;
+        while (true) {
+            lock.lock();
+            try {
+                Boolean current = pending.containsKey(key) ? pending.get(key) : inFlight.get(key);
+                if (current != null || stored != null && flushes == storedGeneration) {
+                    boolean likedNow = current != null ? current : stored;
+                    if (!liked && !likedNow) {
+                        throw new EntityNotFoundException("Like not found!");
+                    }
+                    if (liked == likedNow) {
+                        return false;
+                    }
+                    Boolean cancelled = pending.remove(key);
+                    if (cancelled != null) {
+                        moveDelta(filmId, cancelled ? -1 : 1);
+                        notFull.signalAll();
+                        return true;
+                    }
+                    if (pending.size() >= capacity || stopping) {
+                        // the lock is released while waiting, so the state is checked again afterwards
+                        awaitCapacity(deadline);
+                        continue;
+                    }
+                    pending.put(key, liked);
+                    moveDelta(filmId, liked ? 1 : -1);
+                    if (pending.size() >= batchSize) {
+                        batchReady.signal();
+                    }
+                    return true;
+                }
+                storedGeneration = flushes;
+            } finally {
+                lock.unlock();
+            }
+            // only a pair that is neither pending nor in flight is read from the storage,
+            // and the read is repeated if a flush finishes meanwhile
+            stored = filmStorage.isLiked(filmId, userId);
+        }
+    }
+
+    private void awaitCapacity(long deadline) {
+        if (stopping) {
+            throw new ServiceUnavailableException("Likes are not accepted during shutdown");
+        }
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            throw new ServiceUnavailableException("Too many likes, try again later");
+        }
+        try {
+            notFull.awaitNanos(remaining);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while waiting to save the like");
+        }
+    }
+
+    private void moveDelta(long filmId, long delta) {
+        likesCountDeltas.merge(filmId, delta, (current, change) -> current + change == 0 ? null : current + change);
+    }
+
+    private void forEachChange(BiConsumer<LikeKey, Boolean> action) {
+        Map<LikeKey, Boolean> changes;
+        lock.lock();
+        try {
+            changes = new HashMap<>(inFlight);
+            changes.putAll(pending);
+        } finally {
+            lock.unlock();
+        }
+        changes.forEach(action);
+    }
+
+    private void writeLoop() {
+        while (true) {
+            List<LikeChange> batch = new ArrayList<>(batchSize);
+            lock.lock();
+            try {
+                if (pending.size() < batchSize && !stopping) {
+                    batchReady.await(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                }
+                if (pending.isEmpty()) {
+                    if (stopping) {
+                        return;
+                    }
+                    continue;
+                }
+                Iterator<Map.Entry<LikeKey, Boolean>> entries = pending.entrySet().iterator();
+                while (entries.hasNext() && batch.size() < batchSize) {
+                    Map.Entry<LikeKey, Boolean> entry = entries.next();
+                    LikeKey key = entry.getKey();
+                    inFlight.put(key, entry.getValue());
+                    batch.add(new LikeChange(key.filmId, key.userId, entry.getValue()));
+                    entries.remove();
+                }
+                notFull.signalAll();
+            } catch (InterruptedException e) {
+                stopping = true;
+                continue;
+            } finally {
+                lock.unlock();
+            }
+
+            write(batch);
+
+            lock.lock();
+            try {
+                inFlight.forEach((key, liked) -> moveDelta(key.filmId, liked ? -1 : 1));
+                inFlight.clear();
+                flushes++;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Writes the batch at once; if the batch is rejected, its changes are retried one by one
+     * and the failing ones are dropped. Written changes move the leaderboard.
+     */
+    private void write(List<LikeChange> batch) {
+        leaderboard.changeLikes(() -> {
+            try {
+                filmStorage.applyLikeChanges(batch);
+                batch.forEach(this::moveLeaderboard);
+                log.debug("Flushed {} like changes", batch.size());
+            } catch (RuntimeException e) {
+                log.warn("Like batch of {} changes rejected, retrying one by one: {}", batch.size(), e.getMessage());
+                for (LikeChange change : batch) {
+                    try {
+                        filmStorage.applyLikeChanges(List.of(change));
+                        moveLeaderboard(change);
+                    } catch (RuntimeException ex) {
+                        log.error("Dropped {}: {}", change, ex.getMessage());
+                    }
+                }
+            }
+        });
+    }
+
+    private void moveLeaderboard(LikeChange change) {
+        if (change.isLiked()) {
+            leaderboard.addLike(change.getFilmId());
+        } else {
+            leaderboard.deleteLike(change.getFilmId());
+        }
+    }
+
+    @lombok.Value
+    private static class LikeKey {
+        long filmId;
+        long userId;
+    }
+}
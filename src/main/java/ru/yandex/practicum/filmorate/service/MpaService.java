@@ -2,28 +2,27 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.model.Mpa;
-import ru.yandex.practicum.filmorate.storage.MpaStorage;
+import ru.yandex.practicum.filmorate.storage.impl.ReferenceDictionary;
 
 import java.util.List;
 
 @Service
 @Slf4j
 public class MpaService {
-    private final MpaStorage mpaStorage;
+    private final ReferenceDictionary dictionary;
 
     @Autowired
-    public MpaService(@Qualifier("mpaStorage") MpaStorage mpaStorage) {
-        this.mpaStorage = mpaStorage;
+    public MpaService(ReferenceDictionary dictionary) {
+        this.dictionary = dictionary;
     }
 
     public Mpa getMpaById(long id) {
-        return mpaStorage.getMpaById(id);
+        return dictionary.getMpa(id);
     }
 
     public List<Mpa> getAllMpa() {
-        return mpaStorage.getAllMpa();
+        return dictionary.getAllMpa();
     }
 }
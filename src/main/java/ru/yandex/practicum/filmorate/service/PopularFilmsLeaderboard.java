@@ -0,0 +1,264 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.FilmPopularity;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+
+/**
+ * Films ordered by number of likes, kept in memory and updated on every like change,
+ * so the top of the ranking is read without touching the storage.
+ * Besides the global ranking every genre and every release year has its own one,
+ * so a scoped top-N is read the same way as the global one.
+ * Ties are broken by film id, the same way as in {@code FilmDbStorage.getBestFilms},
+ * which serves the popular films while the leaderboard is being loaded.
+ */
+@Component
+@Slf4j
+public class PopularFilmsLeaderboard {
+    private static final Comparator<Entry> RANKING = Comparator.comparingLong(Entry::getLikes).reversed()
+            .thenComparingLong(Entry::getFilmId);
+
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<Long, Scope> scopes = new HashMap<>();
+    private final NavigableSet<Entry> ranking = new TreeSet<>(RANKING);
+    private final Map<Long, NavigableSet<Entry>> genreRankings = new HashMap<>();
+    private final Map<Integer, NavigableSet<Entry>> yearRankings = new HashMap<>();
+    /**
+     * Taken for writing by loads and for reading by like changes, before the leaderboard monitor.
+     */
+    private final ReadWriteLock loading = new ReentrantReadWriteLock();
+    private final AtomicInteger loadsRunning = new AtomicInteger();
+    /**
+     * Written under the monitor and read without it, so a reader does not wait for a running load.
+     */
+    private volatile boolean loaded;
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void load(Collection<FilmPopularity> films) {
+        load(films::forEach);
+    }
+
+    /**
+     * Rebuilds the rankings, {@code source} passes every film to the consumer. The source is read while no
+     * {@link #changeLikes like change} runs, and like changes started meanwhile wait and are applied
+     * on top of the loaded counts.
+     */
+    public void load(Consumer<Consumer<FilmPopularity>> source) {
+        loadsRunning.incrementAndGet();
+        loading.writeLock().lock();
+        try {
+            synchronized (this) {
+                reload(source);
+            }
+        } finally {
+            loading.writeLock().unlock();
+            loadsRunning.decrementAndGet();
+        }
+    }
+
+    /**
+     * Loads the rankings unless they are loaded already; concurrent callers wait for the first one
+     * instead of reading the storage again.
+     */
+    public void loadIfNeeded(Consumer<Consumer<FilmPopularity>> source) {
+        if (isLoaded()) {
+            return;
+        }
+        loadsRunning.incrementAndGet();
+        loading.writeLock().lock();
+        try {
+            synchronized (this) {
+                if (!loaded) {
+                    reload(source);
+                }
+            }
+        } finally {
+            loading.writeLock().unlock();
+            loadsRunning.decrementAndGet();
+        }
+    }
+
+    /**
+     * Whether a load is running or waiting for like changes to finish, so a reader can use the storage
+     * instead of waiting for the load.
+     */
+    public boolean isLoading() {
+        return loadsRunning.get() > 0;
+    }
+
+    /**
+     * Runs a change of stored likes together with the matching {@link #addLike}/{@link #deleteLike}.
+     * Changes never overlap a load: otherwise a like committed before the load reads it and applied
+     * after the load would be counted twice.
+     */
+    public void changeLikes(Runnable change) {
+        loading.readLock().lock();
+        try {
+            change.run();
+        } finally {
+            loading.readLock().unlock();
+        }
+    }
+
+    /**
+     * Drops the ranking, the next read reloads it from the storage.
+     */
+    public synchronized void invalidate() {
+        loaded = false;
+    }
+
+    /**
+     * Adds a new film or moves an existing one to its new genres and year, keeping its likes.
+     */
+    public synchronized void addFilm(long filmId, Set<Long> genreIds, Integer year) {
+        Entry entry = entries.get(filmId);
+        if (entry != null) {
+            remove(entry);
+        }
+        scopes.put(filmId, new Scope(Set.copyOf(genreIds), year));
+        put(filmId, entry == null ? 0 : entry.getLikes());
+    }
+
+    public synchronized void deleteFilm(long filmId) {
+        Entry entry = entries.get(filmId);
+        if (entry != null) {
+            remove(entry);
+            entries.remove(filmId);
+            scopes.remove(filmId);
+        }
+    }
+
+    public synchronized void addLike(long filmId) {
+        moveLikes(filmId, 1);
+    }
+
+    public synchronized void deleteLike(long filmId) {
+        moveLikes(filmId, -1);
+    }
+
+    public synchronized List<Long> getTop(int count) {
+        return getTop(count, filmId -> true);
+    }
+
+    /**
+     * Top films accepted by the filter, walks the ranking until {@code count} films are found.
+     */
+    public synchronized List<Long> getTop(int count, LongPredicate filter) {
+        return top(ranking, count, filter);
+    }
+
+    /**
+     * Top films of the genre and year, a null scope means no restriction. With both given the smaller
+     * of the two rankings is walked and filtered by the other scope.
+     */
+    public synchronized List<Long> getTop(int count, Long genreId, Integer year) {
+        if (genreId == null && year == null) {
+            return top(ranking, count, filmId -> true);
+        }
+        NavigableSet<Entry> genreRanking = genreId == null ? null
+                : genreRankings.getOrDefault(genreId, Collections.emptyNavigableSet());
+        NavigableSet<Entry> yearRanking = year == null ? null
+                : yearRankings.getOrDefault(year, Collections.emptyNavigableSet());
+        if (yearRanking == null) {
+            return top(genreRanking, count, filmId -> true);
+        }
+        if (genreRanking == null) {
+            return top(yearRanking, count, filmId -> true);
+        }
+        if (genreRanking.size() <= yearRanking.size()) {
+            return top(genreRanking, count, filmId -> year.equals(scopes.get(filmId).getYear()));
+        }
+        return top(yearRanking, count, filmId -> scopes.get(filmId).getGenreIds().contains(genreId));
+    }
+
+    private List<Long> top(NavigableSet<Entry> scopedRanking, int count, LongPredicate filter) {
+        List<Long> filmIds = new ArrayList<>(Math.min(count, scopedRanking.size()));
+        Iterator<Entry> iterator = scopedRanking.iterator();
+        while (filmIds.size() < count && iterator.hasNext()) {
+            long filmId = iterator.next().getFilmId();
+            if (filter.test(filmId)) {
+                filmIds.add(filmId);
+            }
+        }
+        return filmIds;
+    }
+
+    private void reload(Consumer<Consumer<FilmPopularity>> source) {
+        clear();
+        source.accept(film -> {
+            scopes.put(film.getFilmId(), new Scope(film.getGenreIds(), film.getYear()));
+            put(film.getFilmId(), film.getLikes());
+        });
+        loaded = true;
+        log.debug("Leaderboard loaded with {} films, {} genres and {} years", entries.size(), genreRankings.size(),
+                yearRankings.size());
+    }
+
+    private void clear() {
+        entries.clear();
+        scopes.clear();
+        ranking.clear();
+        genreRankings.clear();
+        yearRankings.clear();
+    }
+
+    private void moveLikes(long filmId, long delta) {
+        Entry entry = entries.get(filmId);
+        long likes = entry == null ? 0 : entry.getLikes();
+        if (entry != null) {
+            remove(entry);
+        } else {
+            scopes.putIfAbsent(filmId, Scope.NONE);
+        }
+        put(filmId, Math.max(0, likes + delta));
+    }
+
+    private void put(long filmId, long likes) {
+        Entry entry = new Entry(filmId, likes);
+        entries.put(filmId, entry);
+        ranking.add(entry);
+        Scope scope = scopes.get(filmId);
+        for (Long genreId : scope.getGenreIds()) {
+            genreRankings.computeIfAbsent(genreId, id -> new TreeSet<>(RANKING)).add(entry);
+        }
+        if (scope.getYear() != null) {
+            yearRankings.computeIfAbsent(scope.getYear(), id -> new TreeSet<>(RANKING)).add(entry);
+        }
+    }
+
+    private void remove(Entry entry) {
+        ranking.remove(entry);
+        Scope scope = scopes.get(entry.getFilmId());
+        for (Long genreId : scope.getGenreIds()) {
+            genreRankings.get(genreId).remove(entry);
+        }
+        if (scope.getYear() != null) {
+            yearRankings.get(scope.getYear()).remove(entry);
+        }
+    }
+
+    @Value
+    private static class Entry {
+        long filmId;
+        long likes;
+    }
+
+    @Value
+    private static class Scope {
+        static final Scope NONE = new Scope(Set.of(), null);
+
+        Set<Long> genreIds;
+        Integer year;
+    }
+}
@@ -0,0 +1,188 @@
+package ru.yandex.practicum.filmorate.service;
+
+import it.unimi.dsi.fastutil.ints.Int2DoubleMap;
+import it.unimi.dsi.fastutil.ints.Int2DoubleOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Immutable item-item model: for every film the films most similar to it by cosine similarity
+ * of their like vectors. Films and users are addressed by dense int indexes while building,
+ * the model itself keeps film ids in a sorted {@code long[]} and neighbours as parallel primitive arrays.
+ */
+public final class RecommendationModel {
+    static final int NEIGHBOURS = 20;
+    static final int MAX_USERS_PER_FILM = 200;
+    private static final int FILMS_PER_TASK = 64;
+
+    public static final RecommendationModel EMPTY = new RecommendationModel(new long[0], new int[0][], new float[0][]);
+
+    private final long[] filmIds;
+    private final int[][] neighbours;
+    private final float[][] similarities;
+
+    private RecommendationModel(long[] filmIds, int[][] neighbours, float[][] similarities) {
+        this.filmIds = filmIds;
+        this.neighbours = neighbours;
+        this.similarities = similarities;
+    }
+
+    public int size() {
+        return filmIds.length;
+    }
+
+    /**
+     * Builds the model in the given pool. {@code usersByFilm[i]} holds ids of users who liked film
+     * {@code filmIds[i]}. Films with many likes are represented by an even sample of at most
+     * {@link #MAX_USERS_PER_FILM} users, the co-occurrence counts are scaled back accordingly.
+     */
+    public static RecommendationModel build(long[] filmIds, long[][] usersByFilm, ForkJoinPool pool) {
+        int filmCount = filmIds.length;
+        Integer[] order = new Integer[filmCount];
+        for (int i = 0; i < filmCount; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> filmIds[i]));
+
+        long[] sortedFilmIds = new long[filmCount];
+        int[][] filmUsers = new int[filmCount][];
+        Long2IntOpenHashMap userIndexes = new Long2IntOpenHashMap();
+        userIndexes.defaultReturnValue(-1);
+        for (int i = 0; i < filmCount; i++) {
+            sortedFilmIds[i] = filmIds[order[i]];
+            long[] userIds = usersByFilm[order[i]];
+            filmUsers[i] = new int[userIds.length];
+            for (int k = 0; k < userIds.length; k++) {
+                int index = userIndexes.putIfAbsent(userIds[k], userIndexes.size());
+                filmUsers[i][k] = index < 0 ? userIndexes.size() - 1 : index;
+            }
+        }
+
+        int[] userDegrees = new int[userIndexes.size()];
+        for (int[] users : filmUsers) {
+            for (int user : users) {
+                userDegrees[user]++;
+            }
+        }
+        int[][] userFilms = new int[userDegrees.length][];
+        for (int user = 0; user < userDegrees.length; user++) {
+            userFilms[user] = new int[userDegrees[user]];
+            userDegrees[user] = 0;
+        }
+        for (int film = 0; film < filmCount; film++) {
+            for (int user : filmUsers[film]) {
+                userFilms[user][userDegrees[user]++] = film;
+            }
+        }
+
+        int[][] neighbours = new int[filmCount][];
+        float[][] similarities = new float[filmCount][];
+        pool.invoke(new BuildTask(filmUsers, userFilms, neighbours, similarities, 0, filmCount));
+        return new RecommendationModel(sortedFilmIds, neighbours, similarities);
+    }
+
+    /**
+     * Films similar to the liked ones, scored by the sum of similarities to every liked film.
+     * Liked films themselves are never recommended.
+     */
+    public List<Long> recommend(Collection<Long> likedFilmIds, int limit) {
+        IntSet liked = new IntOpenHashSet();
+        for (Long filmId : likedFilmIds) {
+            int index = Arrays.binarySearch(filmIds, filmId);
+            if (index >= 0) {
+                liked.add(index);
+            }
+        }
+        Int2DoubleOpenHashMap scores = new Int2DoubleOpenHashMap();
+        for (int film : liked) {
+            for (int k = 0; k < neighbours[film].length; k++) {
+                int neighbour = neighbours[film][k];
+                if (!liked.contains(neighbour)) {
+                    scores.addTo(neighbour, similarities[film][k]);
+                }
+            }
+        }
+        List<Long> recommendations = new ArrayList<>(Math.min(limit, scores.size()));
+        scores.int2DoubleEntrySet().stream()
+                .sorted(Comparator.comparingDouble(Int2DoubleMap.Entry::getDoubleValue).reversed()
+                        .thenComparingInt(Int2DoubleMap.Entry::getIntKey))
+                .limit(limit)
+                .forEach(entry -> recommendations.add(filmIds[entry.getIntKey()]));
+        return recommendations;
+    }
+
+    private static class BuildTask extends RecursiveAction {
+        private final int[][] filmUsers;
+        private final int[][] userFilms;
+        private final int[][] neighbours;
+        private final float[][] similarities;
+        private final int from;
+        private final int to;
+
+        BuildTask(int[][] filmUsers, int[][] userFilms, int[][] neighbours, float[][] similarities, int from, int to) {
+            this.filmUsers = filmUsers;
+            this.userFilms = userFilms;
+            this.neighbours = neighbours;
+            this.similarities = similarities;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > FILMS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new BuildTask(filmUsers, userFilms, neighbours, similarities, from, middle),
+                        new BuildTask(filmUsers, userFilms, neighbours, similarities, middle, to));
+                return;
+            }
+            int[] counts = new int[filmUsers.length];
+            int[] touched = new int[filmUsers.length];
+            for (int film = from; film < to; film++) {
+                computeNeighbours(film, counts, touched);
+            }
+        }
+
+        private void computeNeighbours(int film, int[] counts, int[] touched) {
+            int[] users = filmUsers[film];
+            int step = users.length <= MAX_USERS_PER_FILM ? 1 : (users.length + MAX_USERS_PER_FILM - 1)
+                    / MAX_USERS_PER_FILM;
+            int touchedCount = 0;
+            for (int k = 0; k < users.length; k += step) {
+                for (int other : userFilms[users[k]]) {
+                    if (other != film && counts[other]++ == 0) {
+                        touched[touchedCount++] = other;
+                    }
+                }
+            }
+
+            int[] topFilms = new int[NEIGHBOURS];
+            float[] topSimilarities = new float[NEIGHBOURS];
+            int size = 0;
+            for (int t = 0; t < touchedCount; t++) {
+                int other = touched[t];
+                float similarity = (float) (counts[other] * step
+                        / Math.sqrt((double) users.length * filmUsers[other].length));
+                counts[other] = 0;
+                if (size == NEIGHBOURS && similarity <= topSimilarities[size - 1]) {
+                    continue;
+                }
+                int position = size == NEIGHBOURS ? size - 1 : size++;
+                while (position > 0 && topSimilarities[position - 1] < similarity) {
+                    topFilms[position] = topFilms[position - 1];
+                    topSimilarities[position] = topSimilarities[position - 1];
+                    position--;
+                }
+                topFilms[position] = other;
+                topSimilarities[position] = similarity;
+            }
+            neighbours[film] = Arrays.copyOf(topFilms, size);
+            similarities[film] = Arrays.copyOf(topSimilarities, size);
+        }
+    }
+}
@@ -2,47 +2,103 @@ package ru.yandex.practicum.filmorate.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
 public class UserService {
+    private static final int STREAM_PAGE_SIZE = 500;
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final UserStorage userStorage;
+    private final PopularFilmsLeaderboard leaderboard;
+    private final FriendGraph friendGraph;
 
     @Autowired
-    public UserService(@Qualifier("userDbStorage") UserStorage userStorage) {
+    public UserService(@Qualifier("userDbStorage") UserStorage userStorage, PopularFilmsLeaderboard leaderboard,
+                       FriendGraph friendGraph) {
         this.userStorage = userStorage;
+        this.leaderboard = leaderboard;
+        this.friendGraph = friendGraph;
     }
 
     public User addUser(User user) {
         return userStorage.addUser(user);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "users", allEntries = true),
+            @CacheEvict(cacheNames = "films", allEntries = true)
+    })
     public void deleteUser(long id) {
         userStorage.deleteUser(id);
+        leaderboard.invalidate();
+        friendGraph.invalidate();
     }
 
+    @CacheEvict(cacheNames = "users", key = "#user.id")
     public User updateUser(User user) {
         return userStorage.updateUser(user);
-     }
+    }
 
     public List<User> getUsers() {
         return userStorage.getUsers();
     }
 
+    public List<User> getUsers(long afterId, int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Limit should be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return userStorage.getUsers(afterId, limit);
+    }
+
+    /**
+     * Passes all users to the consumer in keyset pages, so a database connection is held only while a page
+     * is read and not while the consumer, e.g. a slow NDJSON download, processes it.
+     */
+    public void streamUsers(Consumer<User> consumer) {
+        long afterId = 0;
+        List<User> page;
+        do {
+            page = userStorage.getUsers(afterId, STREAM_PAGE_SIZE);
+            page.forEach(consumer);
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == STREAM_PAGE_SIZE);
+    }
+
+    @Cacheable(cacheNames = "users", key = "#id")
     public User getUserById(long id) {
         return userStorage.getUserById(id);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "users", key = "#userId"),
+            @CacheEvict(cacheNames = "users", key = "#friendId")
+    })
     public void addFriend(long userId, long friendId) {
         userStorage.addFriend(userId, friendId);
+        refreshFriends(userId, friendId);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "users", key = "#userId"),
+            @CacheEvict(cacheNames = "users", key = "#friendId")
+    })
     public void deleteFriend(long userId, long friendId) {
         userStorage.deleteFriend(userId, friendId);
+        refreshFriends(userId, friendId);
     }
 
     public List<User> getFriends(long userId) {
@@ -50,6 +106,36 @@ public class UserService {
     }
 
     public List<User> getCommonFriends(long userId, long otherUserId) {
-        return userStorage.getCommonFriends(userId, otherUserId);
+        return getUsersByIds(loadedFriendGraph().getCommonFriends(userId, otherUserId));
+    }
+
+    public List<User> getFriendSuggestions(long userId, int limit) {
+        if (limit <= 0 || limit > FriendGraph.MAX_SUGGESTIONS) {
+            throw new ValidationException("Limit should be between 1 and " + FriendGraph.MAX_SUGGESTIONS);
+        }
+        List<Long> suggestions = loadedFriendGraph().getSuggestions(userId);
+        return userStorage.getUsersByIds(suggestions.subList(0, Math.min(limit, suggestions.size())));
+    }
+
+    private FriendGraph loadedFriendGraph() {
+        if (!friendGraph.isLoaded()) {
+            friendGraph.load(userStorage::streamUsers);
+        }
+        return friendGraph;
+    }
+
+    /**
+     * Storages differ in whether a friendship is one-way or mutual,
+     * so the graph takes the friend ids of both users as the storage saved them.
+     */
+    private void refreshFriends(long userId, long friendId) {
+        if (friendGraph.isLoaded()) {
+            friendGraph.setFriends(userId, userStorage.getUserById(userId).getFriendsId());
+            friendGraph.setFriends(friendId, userStorage.getUserById(friendId).getFriendsId());
+        }
+    }
+
+    private List<User> getUsersByIds(long[] ids) {
+        return userStorage.getUsersByIds(Arrays.stream(ids).boxed().collect(Collectors.toList()));
     }
 }
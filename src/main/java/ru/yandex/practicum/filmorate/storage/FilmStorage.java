@@ -1,16 +1,37 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmPopularity;
+import ru.yandex.practicum.filmorate.model.LikeChange;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
     Film addFilm(Film film);
+    void addFilms(List<Film> films);
     void deleteFilm(long id);
     Film updateFilm(Film film);
     List<Film> getFilms();
+    List<Film> getFilms(long afterId, int limit);
+    void streamFilms(Consumer<Film> consumer);
+    void streamFilms(Consumer<Film> consumer, boolean withLikes);
     List<Film> getBestFilms(int count);
+    List<Film> getBestFilms(int count, Long genreId, Integer year);
     Film getFilmById(long id);
-    void addLike(long filmId, long userId);
+    List<Film> getFilmsByIds(List<Long> ids);
+    List<FilmPopularity> getFilmPopularity();
+    List<Long> getLikedFilmIds(long userId);
+    List<Long> getLikes(long filmId, long afterUserId, int limit);
+    /**
+     * @throws ru.yandex.practicum.filmorate.exceptions.EntityNotFoundException if the film or the user is missing
+     */
+    boolean isLiked(long filmId, long userId);
+    /**
+     * @return false if the user already likes the film
+     * @throws ru.yandex.practicum.filmorate.exceptions.EntityNotFoundException if the film is missing
+     */
+    boolean addLike(long filmId, long userId);
     void deleteLike(long filmId, long userId);
+    void applyLikeChanges(List<LikeChange> changes);
 }
@@ -3,13 +3,18 @@ package ru.yandex.practicum.filmorate.storage;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserStorage {
     User addUser(User user);
+    void addUsers(List<User> users);
     void deleteUser(long id);
     User updateUser(User user);
     List<User> getUsers();
+    List<User> getUsers(long afterId, int limit);
+    void streamUsers(Consumer<User> consumer);
     User getUserById(Long id);
+    List<User> getUsersByIds(List<Long> ids);
     void addFriend(long userId, long friendId);
     void deleteFriend(long userId, long friendId);
     List<User> getFriends(long userId);
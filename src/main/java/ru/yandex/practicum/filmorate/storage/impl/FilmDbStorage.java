@@ -2,48 +2,144 @@ package ru.yandex.practicum.filmorate.storage.impl;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exceptions.EntityNotFoundException;
 import ru.yandex.practicum.filmorate.exceptions.ValidationException;
 import ru.yandex.practicum.filmorate.model.*;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 
+import java.sql.Date;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.Year;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Component
 @Qualifier("filmDbStorage")
 @Slf4j
 public class FilmDbStorage implements FilmStorage {
+    /**
+     * Above this number of films the details are read for the whole tables instead of an IN (...) list,
+     * which would otherwise become a huge statement for H2 to parse.
+     */
+    private static final int IN_LIST_LIMIT = 1000;
+    private static final int STREAM_CHUNK_SIZE = 500;
+    /**
+     * Inserts a like unless it is already there; the update count tells whether it was inserted.
+     */
+    private static final String LIKE_MERGE_SQL = "merge into LIKES as L " +
+            "using (select cast(? as integer) as FILM_ID, cast(? as integer) as USER_ID) as S " +
+            "on L.FILM_ID = S.FILM_ID and L.USER_ID = S.USER_ID " +
+            "when not matched then insert (FILM_ID, USER_ID) values (S.FILM_ID, S.USER_ID)";
+    /**
+     * Inserts a like and moves LIKE_COUNT in one statement: the counter is updated only if the merge inserted
+     * a row, so the update count tells whether the like is new. A missing film updates nothing either.
+     */
+    private static final String ADD_LIKE_SQL = "update FILMS set LIKE_COUNT = LIKE_COUNT + 1 " +
+            "where FILM_ID = ? and exists (select 1 from FINAL TABLE (" + LIKE_MERGE_SQL + "))";
+    private static final String DELETE_LIKE_SQL = "update FILMS set LIKE_COUNT = LIKE_COUNT - 1 " +
+            "where FILM_ID = ? and exists (select 1 from OLD TABLE (" +
+            "delete from LIKES where FILM_ID = ? and USER_ID = ?))";
+
     private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final ReferenceDictionary dictionary;
+    private final SimpleJdbcInsert filmInsert;
 
-    public FilmDbStorage(JdbcTemplate jdbcTemplate) {
+    public FilmDbStorage(JdbcTemplate jdbcTemplate, ReferenceDictionary dictionary) {
         this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.dictionary = dictionary;
+        this.filmInsert = new SimpleJdbcInsert(jdbcTemplate)
+                .withTableName("FILMS")
+                .usingColumns("FILM_NAME", "RELEASE_DATE", "DESCRIPTION", "DURATION", "RATE", "MPA_ID")
+                .usingGeneratedKeyColumns("FILM_ID");
     }
 
     @Override
+    @Transactional
     public Film addFilm(Film film) {
-        SimpleJdbcInsert simpleJdbcInsert = new SimpleJdbcInsert(jdbcTemplate)
-                .withTableName("FILMS")
-                .usingGeneratedKeyColumns("FILM_ID");
-
-        long filmId = simpleJdbcInsert.executeAndReturnKey(film.toMap()).longValue();
+        long filmId = filmInsert.executeAndReturnKey(film.toMap()).longValue();
+        insertGenres(filmId, film.getGenres());
+        return getFilmById(filmId);
+    }
 
-        film.getGenres().forEach(genre -> {
-            String sql2 = "insert into FILMS_GENRES (FILM_ID, GENRE_ID) values (?, ?)";
-            jdbcTemplate.update(sql2, filmId, genre.getId());
+    /**
+     * Inserts the films with one batch for FILMS and one for FILMS_GENRES and sets generated ids on them.
+     */
+    @Override
+    @Transactional
+    public void addFilms(List<Film> films) {
+        if (films.isEmpty()) {
+            return;
+        }
+        String sql = "insert into FILMS (FILM_NAME, RELEASE_DATE, DESCRIPTION, DURATION, RATE, MPA_ID) " +
+                "values (?, ?, ?, ?, ?, ?)";
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql, new String[]{"FILM_ID"})) {
+                for (Film film : films) {
+                    statement.setString(1, film.getName());
+                    statement.setObject(2, film.getReleaseDate());
+                    statement.setString(3, film.getDescription());
+                    statement.setInt(4, film.getDuration());
+                    statement.setInt(5, film.getRate());
+                    statement.setLong(6, film.getMpa().getId());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                GeneratedKeys.setIds(statement, films, Film::setId);
+            }
+            return null;
         });
 
-        return getFilmById(filmId);
+        String genresSql = "insert into FILMS_GENRES (FILM_ID, GENRE_ID) values (?, ?)";
+        List<Object[]> genresArgs = films.stream()
+                .filter(film -> film.getGenres() != null)
+                .flatMap(film -> film.getGenres().stream()
+                        .map(Genre::getId)
+                        .distinct()
+                        .map(genreId -> new Object[]{film.getId(), genreId}))
+                .collect(Collectors.toList());
+        if (!genresArgs.isEmpty()) {
+            jdbcTemplate.batchUpdate(genresSql, genresArgs);
+        }
+        log.debug("Added {} films", films.size());
     }
 
     @Override
     public Film getFilmById(long id) {
         String sql2 = "select * from FILMS where FILM_ID = ?";
-        return jdbcTemplate.queryForObject(sql2, this::mapRowToFilm, id); // genres
+        Film film = jdbcTemplate.queryForObject(sql2, this::mapRowToFilm, id);
+        assembleFilms(List.of(film));
+        return film;
+    }
+
+    @Override
+    public List<Film> getFilmsByIds(List<Long> ids) {
+        String sql = "select * from FILMS where FILM_ID in (:ids)";
+        Map<Long, Film> filmsById = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += IN_LIST_LIMIT) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_LIST_LIMIT, ids.size()));
+            List<Film> films = namedParameterJdbcTemplate.query(sql, new MapSqlParameterSource("ids", chunk),
+                    this::mapRowToFilm);
+            assembleFilms(films).forEach(film -> filmsById.put(film.getId(), film));
+        }
+        return ids.stream()
+                .map(filmsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 
     @Override
@@ -57,114 +153,324 @@ public class FilmDbStorage implements FilmStorage {
     }
 
     @Override
+    @Transactional
     public Film updateFilm(Film film) {
-        String sql = "delete from FILMS_GENRES where FILM_ID = ?";
-        if (jdbcTemplate.update(sql, film.getId()) > 0) {
-            log.debug("Deleted genres of film with id: {}", film.getId());
-        }
-
-        String sql2 = "update FILMS set FILM_NAME = ?, RELEASE_DATE = ?, " +
+        String sql = "update FILMS set FILM_NAME = ?, RELEASE_DATE = ?, " +
                 "DESCRIPTION = ?, DURATION = ?, RATE = ?, MPA_ID = ? where FILM_ID = ?";
-        boolean isUpdate = jdbcTemplate.update(sql2, film.getName(), film.getReleaseDate(), film.getDescription(),
+        boolean isUpdate = jdbcTemplate.update(sql, film.getName(), film.getReleaseDate(), film.getDescription(),
                 film.getDuration(), film.getRate(), film.getMpa().getId(), film.getId()) > 0;
-
-        film.getGenres().forEach(genre -> {
-            String sql3 = "insert into FILMS_GENRES (FILM_ID, GENRE_ID) " +
-                    "values (?, ?)";
-            jdbcTemplate.update(sql3, film.getId(), genre.getId());
-        });
-
-        if (isUpdate) {
-            log.debug("User with id: {} updated", film.getId());
-        } else {
+        if (!isUpdate) {
             throw new EntityNotFoundException("User not found!");
         }
+
+        String sql2 = "delete from FILMS_GENRES where FILM_ID = ?";
+        if (jdbcTemplate.update(sql2, film.getId()) > 0) {
+            log.debug("Deleted genres of film with id: {}", film.getId());
+        }
+        insertGenres(film.getId(), film.getGenres());
+
+        log.debug("Film with id: {} updated", film.getId());
         return getFilmById(film.getId());
     }
 
+    private void insertGenres(long filmId, Set<Genre> genres) {
+        if (genres == null || genres.isEmpty()) {
+            return;
+        }
+        String sql = "insert into FILMS_GENRES (FILM_ID, GENRE_ID) values (?, ?)";
+        List<Object[]> batchArgs = genres.stream()
+                .map(Genre::getId)
+                .distinct()
+                .map(genreId -> new Object[]{filmId, genreId})
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(sql, batchArgs);
+    }
+
     @Override
     public List<Film> getFilms() {
         String sql = "select * from FILMS order by FILM_ID";
-        return jdbcTemplate.query(sql, this::mapRowToFilm);
+        return assembleFilms(jdbcTemplate.query(sql, this::mapRowToFilm));
+    }
+
+    @Override
+    public List<Film> getFilms(long afterId, int limit) {
+        if (limit <= 0) {
+            throw new ValidationException("Limit should be positive");
+        }
+        String sql = "select * from FILMS where FILM_ID > ? order by FILM_ID LIMIT ?";
+        List<Film> films = assembleFilms(jdbcTemplate.query(sql, this::mapRowToFilm, afterId, limit));
+        log.debug("Get {} films after id {}", films.size(), afterId);
+        return films;
+    }
+
+    @Override
+    public void streamFilms(Consumer<Film> consumer) {
+        streamFilms(consumer, false);
+    }
+
+    @Override
+    public void streamFilms(Consumer<Film> consumer, boolean withLikes) {
+        String sql = "select * from FILMS order by FILM_ID";
+        List<Film> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(STREAM_CHUNK_SIZE);
+            return statement;
+        }, resultSet -> {
+            chunk.add(mapRowToFilm(resultSet, 0));
+            if (chunk.size() == STREAM_CHUNK_SIZE) {
+                assembleFilms(chunk, withLikes).forEach(consumer);
+                chunk.clear();
+            }
+        });
+        assembleFilms(chunk, withLikes).forEach(consumer);
+    }
+
+    @Override
+    public List<FilmPopularity> getFilmPopularity() {
+        Map<Long, Set<Long>> genreIds = new HashMap<>();
+        jdbcTemplate.query("select FILM_ID, GENRE_ID from FILMS_GENRES", resultSet -> {
+            genreIds.computeIfAbsent(resultSet.getLong("FILM_ID"), id -> new HashSet<>())
+                    .add(resultSet.getLong("GENRE_ID"));
+        });
+        String sql = "select FILM_ID, LIKE_COUNT, RELEASE_DATE from FILMS";
+        return jdbcTemplate.query(sql, (resultSet, rowNum) -> {
+            long filmId = resultSet.getLong("FILM_ID");
+            Date releaseDate = resultSet.getDate("RELEASE_DATE");
+            return new FilmPopularity(filmId, resultSet.getLong("LIKE_COUNT"),
+                    releaseDate == null ? null : releaseDate.toLocalDate().getYear(),
+                    genreIds.getOrDefault(filmId, Set.of()));
+        });
     }
 
     @Override
-    public void addLike(long filmId, long userId) {
-        String sql = "insert into LIKES (FILM_ID, USER_ID) values (?, ?)";
-        jdbcTemplate.update(sql, filmId, userId);
+    public List<Long> getLikedFilmIds(long userId) {
+        String sql = "select FILM_ID from LIKES where USER_ID = ?";
+        return jdbcTemplate.queryForList(sql, Long.class, userId);
+    }
+
+    /**
+     * Keyset page over LIKES_PK, so a page costs the same wherever it starts.
+     */
+    @Override
+    public List<Long> getLikes(long filmId, long afterUserId, int limit) {
+        if (limit <= 0) {
+            throw new ValidationException("Limit should be positive");
+        }
+        String sql = "select USER_ID from LIKES where FILM_ID = ? and USER_ID > ? order by USER_ID LIMIT ?";
+        List<Long> userIds = jdbcTemplate.queryForList(sql, Long.class, filmId, afterUserId, limit);
+        if (userIds.isEmpty() && jdbcTemplate.queryForObject("select count(*) from FILMS where FILM_ID = ?",
+                Integer.class, filmId) == 0) {
+            throw new EntityNotFoundException("Film not found!");
+        }
+        log.debug("Get {} likes of film {} after user {}", userIds.size(), filmId, afterUserId);
+        return userIds;
+    }
+
+    /**
+     * Checks the film, the user and the like with one query.
+     */
+    @Override
+    public boolean isLiked(long filmId, long userId) {
+        String sql = "select exists(select 1 from FILMS where FILM_ID = ?) as FILM_EXISTS, " +
+                "exists(select 1 from USERS where USER_ID = ?) as USER_EXISTS, " +
+                "exists(select 1 from LIKES where FILM_ID = ? and USER_ID = ?) as LIKED";
+        return jdbcTemplate.queryForObject(sql, (rs, rowNum) -> {
+            if (!rs.getBoolean("FILM_EXISTS")) {
+                throw new EntityNotFoundException("Film not found!");
+            }
+            if (!rs.getBoolean("USER_EXISTS")) {
+                throw new EntityNotFoundException("User not found!");
+            }
+            return rs.getBoolean("LIKED");
+        }, filmId, userId, filmId, userId);
+    }
+
+    /**
+     * A new like takes one statement; only when nothing was inserted the film is checked, to tell
+     * a repeated like from a missing film.
+     */
+    @Override
+    public boolean addLike(long filmId, long userId) {
+        int inserted;
+        try {
+            inserted = jdbcTemplate.update(ADD_LIKE_SQL, filmId, filmId, userId);
+        } catch (DuplicateKeyException e) {
+            // a concurrent request inserted the same like between the merge's check and its insert
+            log.debug("User with id {} already likes film with id {}", userId, filmId);
+            return false;
+        }
+        if (inserted == 0) {
+            isLiked(filmId, userId);
+            log.debug("User with id {} already likes film with id {}", userId, filmId);
+            return false;
+        }
+        return true;
     }
 
     @Override
     public void deleteLike(long filmId, long userId) {
-        String sql = "delete from LIKES where FILM_ID = ? and USER_ID = ?";
-        if (jdbcTemplate.update(sql, filmId, userId) == 0) {
+        if (jdbcTemplate.update(DELETE_LIKE_SQL, filmId, filmId, userId) == 0) {
             throw new EntityNotFoundException("Wrong ID");
         }
     }
 
+    /**
+     * Writes likes and unlikes with one batch each and moves LIKE_COUNT by what the batches actually changed,
+     * so repeated likes and unlikes of missing likes are no-ops.
+     */
+    @Override
+    @Transactional
+    public void applyLikeChanges(List<LikeChange> changes) {
+        List<LikeChange> likes = new ArrayList<>();
+        List<LikeChange> unlikes = new ArrayList<>();
+        changes.forEach(change -> (change.isLiked() ? likes : unlikes).add(change));
+        Map<Long, Integer> deltas = new HashMap<>();
+
+        if (!likes.isEmpty()) {
+            int[] inserted = jdbcTemplate.batchUpdate(LIKE_MERGE_SQL, likes.stream()
+                    .map(like -> new Object[]{like.getFilmId(), like.getUserId()})
+                    .collect(Collectors.toList()));
+            for (int i = 0; i < inserted.length; i++) {
+                deltas.merge(likes.get(i).getFilmId(), inserted[i], Integer::sum);
+            }
+        }
+
+        String deleteSql = "delete from LIKES where FILM_ID = ? and USER_ID = ?";
+        if (!unlikes.isEmpty()) {
+            int[] deleted = jdbcTemplate.batchUpdate(deleteSql, unlikes.stream()
+                    .map(unlike -> new Object[]{unlike.getFilmId(), unlike.getUserId()})
+                    .collect(Collectors.toList()));
+            for (int i = 0; i < deleted.length; i++) {
+                deltas.merge(unlikes.get(i).getFilmId(), -deleted[i], Integer::sum);
+            }
+        }
+
+        List<Object[]> countArgs = deltas.entrySet().stream()
+                .filter(delta -> delta.getValue() != 0)
+                .map(delta -> new Object[]{delta.getValue(), delta.getKey()})
+                .collect(Collectors.toList());
+        if (!countArgs.isEmpty()) {
+            jdbcTemplate.batchUpdate("update FILMS set LIKE_COUNT = LIKE_COUNT + ? where FILM_ID = ?", countArgs);
+        }
+        log.debug("Applied {} likes and {} unlikes", likes.size(), unlikes.size());
+    }
+
+    /**
+     * Recomputes FILMS.LIKE_COUNT from the LIKES table for the films whose counter has drifted.
+     *
+     * @return number of repaired films
+     */
+    public int recalculateLikeCounts() {
+        String sql = "update FILMS as F set LIKE_COUNT = " +
+                "(select count(*) from LIKES as L where L.FILM_ID = F.FILM_ID) " +
+                "where LIKE_COUNT <> (select count(*) from LIKES as L where L.FILM_ID = F.FILM_ID)";
+        int repaired = jdbcTemplate.update(sql);
+        log.debug("Like counts repaired for {} films", repaired);
+        return repaired;
+    }
+
     @Override
     public List<Film> getBestFilms(int count) {
         if (count < 0) {
             throw new ValidationException("Count should be positive");
         }
 
-        String sql = "select F.FILM_ID, F.FILM_NAME, F.RELEASE_DATE, F.DESCRIPTION, F.DURATION, F.RATE, " +
-                "F.MPA_ID, count(L.USER_ID) as Likes from FILMS as F left join LIKES as L on F.FILM_ID = L.FILM_ID " +
-                "GROUP BY F.FILM_ID order by Likes desc LIMIT ?";
-        List<Film> bestFilms = jdbcTemplate.query(sql, this::mapRowToFilm, count);
+        String sql = "select * from FILMS order by LIKE_COUNT desc, FILM_ID LIMIT ?";
+        List<Film> bestFilms = assembleFilms(jdbcTemplate.query(sql, this::mapRowToFilm, count));
 
         log.debug("Get {} best films", count);
         return bestFilms;
     }
 
-    private List<Genre> getGenresByFilmsId(long id) {
-        String sql = "select G.GENRE_ID, G.GENRE_NAME from GENRES as G " +
-                "join FILMS_GENRES as FG on G.GENRE_ID = FG.GENRE_ID where FG.FILM_ID = ?";
-        return jdbcTemplate.query(sql, this::mapRowToGenre, id);
-    }
+    /**
+     * The genre is matched through FILMS_GENRES_GENRE_IDX and the year as a RELEASE_DATE range,
+     * so both filters are served by indexes instead of scanning FILMS.
+     */
+    @Override
+    public List<Film> getBestFilms(int count, Long genreId, Integer year) {
+        if (count < 0) {
+            throw new ValidationException("Count should be positive");
+        }
+        if (year != null && (year < Year.MIN_VALUE || year >= Year.MAX_VALUE)) {
+            throw new ValidationException("Year should be between " + Year.MIN_VALUE + " and " + (Year.MAX_VALUE - 1));
+        }
+        if (genreId == null && year == null) {
+            return getBestFilms(count);
+        }
 
-    private Mpa getMpaOfFilm(long id) {
-        String sql = "select * from MPA_RATING where MPA_ID = ?";
-        return jdbcTemplate.queryForObject(sql, this::mapRowToMpa, id);
-    }
+        StringBuilder sql = new StringBuilder("select F.* from FILMS as F");
+        MapSqlParameterSource params = new MapSqlParameterSource("count", count);
+        if (genreId != null) {
+            sql.append(" join FILMS_GENRES as G on G.FILM_ID = F.FILM_ID and G.GENRE_ID = :genreId");
+            params.addValue("genreId", genreId);
+        }
+        if (year != null) {
+            sql.append(" where F.RELEASE_DATE >= :from and F.RELEASE_DATE < :to");
+            params.addValue("from", LocalDate.of(year, 1, 1));
+            params.addValue("to", LocalDate.of(year + 1, 1, 1));
+        }
+        sql.append(" order by F.LIKE_COUNT desc, F.FILM_ID LIMIT :count");
+        List<Film> bestFilms = assembleFilms(namedParameterJdbcTemplate.query(sql.toString(), params,
+                this::mapRowToFilm));
 
-    private List<Long> getFilmsLikes(long filmId) {
-        String sql = "select USER_ID from LIKES where FILM_ID = ?";
-        return jdbcTemplate.query(sql, (resultSet, rowNum) -> resultSet.getLong("USER_ID"), filmId);
+        log.debug("Get {} best films of genre {} and year {}", count, genreId, year);
+        return bestFilms;
     }
 
-    private Set<Genre> getSetOfGenres(List<Genre> genresList) {
-        Set<Genre> genres = new TreeSet<>(Comparator.comparing(Genre::getId));
-        genres.addAll(genresList);
-        return genres;
+    private List<Film> assembleFilms(List<Film> films) {
+        return assembleFilms(films, false);
     }
 
-    private Mpa mapRowToMpa(ResultSet resultSet, int rowNum) throws SQLException {
-        return Mpa.builder()
-                .id(resultSet.getLong("MPA_ID"))
-                .name(resultSet.getString("MPA_NAME"))
-                .build();
+    /**
+     * Fills genres, and likes when asked for, of already mapped films with one query per table, regardless
+     * of the number of films. MPA and genre names come from the in-memory dictionary, like counts
+     * from FILMS.LIKE_COUNT.
+     */
+    private List<Film> assembleFilms(List<Film> films, boolean withLikes) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        Map<Long, Film> filmsById = films.stream()
+                .collect(Collectors.toMap(Film::getId, Function.identity(), (f1, f2) -> f1));
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", filmsById.keySet());
+        boolean allFilms = filmsById.size() > IN_LIST_LIMIT;
+
+        filmsById.values().forEach(film -> film.setMpa(dictionary.getMpa(film.getMpa().getId())));
+
+        String genresSql = "select FILM_ID, GENRE_ID from FILMS_GENRES" + (allFilms ? "" : " where FILM_ID in (:ids)");
+        namedParameterJdbcTemplate.query(genresSql, params, resultSet -> {
+            Film film = filmsById.get(resultSet.getLong("FILM_ID"));
+            if (film != null) {
+                film.getGenres().add(dictionary.getGenre(resultSet.getLong("GENRE_ID")));
+            }
+        });
+
+        if (withLikes) {
+            String likesSql = "select FILM_ID, USER_ID from LIKES" + (allFilms ? "" : " where FILM_ID in (:ids)");
+            namedParameterJdbcTemplate.query(likesSql, params, resultSet -> {
+                Film film = filmsById.get(resultSet.getLong("FILM_ID"));
+                if (film != null) {
+                    film.getIdUsersLike().add(resultSet.getLong("USER_ID"));
+                }
+            });
+        }
+
+        log.debug("Assembled {} films", filmsById.size());
+        return films;
     }
 
     private Film mapRowToFilm(ResultSet resultSet, int rowNum) throws SQLException {
-        long filmId = resultSet.getLong("FILM_ID");
-        return FilmBuilder.builder()
-                .id(filmId)
-                .idUsersLike(new HashSet<>(getFilmsLikes(filmId)))
+        Film film = FilmBuilder.builder()
+                .id(resultSet.getLong("FILM_ID"))
                 .name(resultSet.getString("FILM_NAME"))
                 .releaseDate(resultSet.getDate("RELEASE_DATE").toLocalDate())
                 .description(resultSet.getString("DESCRIPTION"))
                 .duration(resultSet.getInt("DURATION"))
                 .rate(resultSet.getInt("RATE"))
-                .mpa(getMpaOfFilm(resultSet.getLong("MPA_ID")))
-                .genres(getSetOfGenres(getGenresByFilmsId(filmId)))
-                .build();
-    }
-
-    private Genre mapRowToGenre(ResultSet resultSet, int rowNum) throws SQLException {
-        return Genre.builder()
-                .id(resultSet.getLong("GENRE_ID"))
-                .name(resultSet.getString("GENRE_NAME"))
+                .mpa(Mpa.builder().id(resultSet.getLong("MPA_ID")).build())
                 .build();
+        film.setLikesCount(resultSet.getLong("LIKE_COUNT"));
+        return film;
     }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.storage.impl;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Generated keys of batched inserts, shared by the Db storages.
+ */
+final class GeneratedKeys {
+    private GeneratedKeys() {
+    }
+
+    /**
+     * Passes the keys generated by the executed batch to the entities, in the order they were added.
+     */
+    static <T> void setIds(PreparedStatement statement, List<T> entities, ObjLongConsumer<T> idSetter)
+            throws SQLException {
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            Iterator<T> iterator = entities.iterator();
+            while (keys.next() && iterator.hasNext()) {
+                idSetter.accept(iterator.next(), keys.getLong(1));
+            }
+        }
+    }
+}
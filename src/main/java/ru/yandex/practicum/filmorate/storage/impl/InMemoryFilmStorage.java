@@ -7,21 +7,40 @@ import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exceptions.EntityNotFoundException;
 import ru.yandex.practicum.filmorate.exceptions.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmPopularity;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeChange;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 
+import java.util.AbstractMap;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Safe for concurrent requests: films live in a {@link ConcurrentHashMap} and their like sets are
+ * synchronized {@link ru.yandex.practicum.filmorate.model.LongIdSet}s, so adding or deleting a like
+ * is a single atomic set operation. Likes are changed and films are replaced inside {@code compute} on the film's
+ * key, so a like never lands on a film that a concurrent update has already replaced.
+ * Adding films is serialized to keep the duplicate check and the insert together.
+ */
 @Component
 @Qualifier("inMemoryFilmStorage")
 public class InMemoryFilmStorage implements FilmStorage {
     private final Logger log = LoggerFactory.getLogger(getClass());
-    private final Map<Long, Film> films = new HashMap<>();
-    private long filmId = 1;
+    private final Map<Long, Film> films = new ConcurrentHashMap<>();
+    private final AtomicLong filmId = new AtomicLong(1);
     private final InMemoryUserStorage inMemoryUserStorage;
 
     public InMemoryFilmStorage(InMemoryUserStorage inMemoryUserStorage) {
@@ -30,32 +49,37 @@ public class InMemoryFilmStorage implements FilmStorage {
 
 
     @Override
-    public Film addFilm(Film film) {
+    public synchronized Film addFilm(Film film) {
         if (films.containsValue(film)) {
             throw new ValidationException("Film already created");
         }
-        film.setId(filmId);
+        film.setId(filmId.getAndIncrement());
         films.put(film.getId(), film);
-        generationId();
         log.debug("Film created: {}", film);
         return film;
     }
 
+    @Override
+    public void addFilms(List<Film> films) {
+        films.forEach(this::addFilm);
+    }
+
     @Override
     public void deleteFilm(long id) {
-        if(!films.containsKey(id)) {
+        if (films.remove(id) == null) {
             throw new EntityNotFoundException("Film not found!");
         }
         log.debug("Film with id: {} deleted", id);
-        films.remove(id);
     }
 
     @Override
     public Film updateFilm(Film film) {
-        if(!films.containsKey(film.getId())) {
+        if (films.computeIfPresent(film.getId(), (id, stored) -> {
+            film.keepLikesOf(stored);
+            return film;
+        }) == null) {
             throw new EntityNotFoundException("Film not found!");
         }
-        films.put(film.getId(), film);
         log.info("Update film: {}", film);
         return film;
     }
@@ -66,32 +90,111 @@ public class InMemoryFilmStorage implements FilmStorage {
         return new ArrayList<>(films.values());
     }
 
+    @Override
+    public List<Film> getFilms(long afterId, int limit) {
+        if (limit <= 0) {
+            throw new ValidationException("Limit should be positive");
+        }
+        log.debug("Get {} films after id {}", limit, afterId);
+        return films.values().stream()
+                .filter(film -> film.getId() > afterId)
+                .sorted(Comparator.comparingLong(Film::getId))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void streamFilms(Consumer<Film> consumer) {
+        films.values().forEach(consumer);
+    }
+
+    @Override
+    public void streamFilms(Consumer<Film> consumer, boolean withLikes) {
+        streamFilms(consumer);
+    }
+
     @Override
     public List<Film> getBestFilms(int count) {
         if (count < 0) {
             throw new ValidationException("Count should be positive");
         }
-        List<Film> filmList = new ArrayList<>(films.values());
         log.debug("Get {} best films", count);
-        return filmList.stream()
-                .sorted((f1, f2) -> f2.getIdUsersLike().size() - f1.getIdUsersLike().size())
-                .limit(count).collect(Collectors.toList());
+        return mostLiked(films.values().stream(), count);
+    }
+
+    @Override
+    public List<Film> getBestFilms(int count, Long genreId, Integer year) {
+        if (count < 0) {
+            throw new ValidationException("Count should be positive");
+        }
+        log.debug("Get {} best films of genre {} and year {}", count, genreId, year);
+        return mostLiked(films.values().stream()
+                .filter(film -> genreId == null || film.getGenres().stream().anyMatch(g -> genreId.equals(g.getId())))
+                .filter(film -> year == null || film.getReleaseDate() != null
+                        && film.getReleaseDate().getYear() == year), count);
     }
 
     @Override
     public Film getFilmById(long id) {
-        if(!films.containsKey(id)) {
+        Film film = films.get(id);
+        if (film == null) {
             throw new EntityNotFoundException("Film not found!");
         }
         log.debug("Find film with id: {}", id);
-        return films.get(id);
+        return film;
     }
 
     @Override
-    public void addLike(long filmId, long userId) {
+    public List<Film> getFilmsByIds(List<Long> ids) {
+        return ids.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<FilmPopularity> getFilmPopularity() {
+        return films.values().stream()
+                .map(film -> new FilmPopularity(film.getId(), film.getIdUsersLike().size(),
+                        film.getReleaseDate() == null ? null : film.getReleaseDate().getYear(),
+                        film.getGenres().stream().map(Genre::getId).collect(Collectors.toSet())))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Long> getLikedFilmIds(long userId) {
+        return films.values().stream()
+                .filter(film -> film.getIdUsersLike().contains(userId))
+                .map(Film::getId)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Long> getLikes(long filmId, long afterUserId, int limit) {
+        if (limit <= 0) {
+            throw new ValidationException("Limit should be positive");
+        }
+        return Arrays.stream(getFilmById(filmId).getIdUsersLike().toLongArray())
+                .filter(userId -> userId > afterUserId)
+                .sorted()
+                .limit(limit)
+                .boxed()
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean isLiked(long filmId, long userId) {
+        Film film = getFilmById(filmId);
+        inMemoryUserStorage.getUserById(userId);
+        return film.getIdUsersLike().contains(userId);
+    }
+
+    @Override
+    public boolean addLike(long filmId, long userId) {
         if(inMemoryUserStorage.getUserById(userId).getClass().equals(User.class)) {
-            getFilmById(filmId).addLike(userId);
+            boolean added = changeLikes(filmId, film -> film.addLike(userId));
             log.debug("User with id {} liked film with id {}", userId, filmId);
+            return added;
         } else {
             throw new EntityNotFoundException("User not found!");
         }
@@ -100,14 +203,54 @@ public class InMemoryFilmStorage implements FilmStorage {
     @Override
     public void deleteLike(long filmId, long userId) {
         if(inMemoryUserStorage.getUserById(userId).getClass().equals(User.class)) {
-            getFilmById(filmId).deleteLike(userId);
+            changeLikes(filmId, film -> {
+                film.deleteLike(userId);
+                return null;
+            });
             log.debug("User with id {} remove like film with id {}", userId, filmId);
         } else {
             throw new EntityNotFoundException("User not found!");
         }
     }
 
-    private void generationId() {
-        filmId++;
+    @Override
+    public void applyLikeChanges(List<LikeChange> changes) {
+        for (LikeChange change : changes) {
+            films.computeIfPresent(change.getFilmId(), (id, film) -> {
+                if (change.isLiked()) {
+                    film.addLike(change.getUserId());
+                } else {
+                    try {
+                        film.deleteLike(change.getUserId());
+                    } catch (EntityNotFoundException e) {
+                        log.debug("User with id {} does not like film with id {}", change.getUserId(), id);
+                    }
+                }
+                return film;
+            });
+        }
+    }
+
+    private <T> T changeLikes(long filmId, Function<Film, T> change) {
+        AtomicReference<T> result = new AtomicReference<>();
+        if (films.computeIfPresent(filmId, (id, film) -> {
+            result.set(change.apply(film));
+            return film;
+        }) == null) {
+            throw new EntityNotFoundException("Film not found!");
+        }
+        return result.get();
+    }
+
+    /**
+     * Like counts change under concurrent likes, so they are read once before sorting.
+     */
+    private static List<Film> mostLiked(Stream<Film> films, int count) {
+        return films.map(film -> new AbstractMap.SimpleImmutableEntry<>(film, film.getIdUsersLike().size()))
+                .sorted(Map.Entry.<Film, Integer>comparingByValue().reversed()
+                        .thenComparingLong(entry -> entry.getKey().getId()))
+                .limit(count)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
     }
 }
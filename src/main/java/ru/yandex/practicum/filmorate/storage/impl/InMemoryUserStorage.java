@@ -10,55 +10,79 @@ import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+/**
+ * Safe for concurrent requests: users live in a {@link ConcurrentHashMap} and their friend sets are
+ * synchronized {@link ru.yandex.practicum.filmorate.model.LongIdSet}s.
+ * A friendship changes two sets, so it is done under the striped locks of both users,
+ * taken in stripe order, and readers never see it on one side only after the call returns.
+ * An update replaces a user under the lock of its stripe and takes over the stored friend set,
+ * so a friendship added at the same time is not lost on the replaced instance.
+ */
 @Component
 @Qualifier("inMemoryUserStorage")
 public class InMemoryUserStorage implements UserStorage {
     private final Logger log = LoggerFactory.getLogger(getClass());
-    private final Map<Long, User> users = new HashMap<>();
-    private long userId = 1;
+    private static final int LOCK_STRIPES = 64;
+
+    private final Map<Long, User> users = new ConcurrentHashMap<>();
+    private final AtomicLong userId = new AtomicLong(1);
+    private final Object[] friendLocks = new Object[LOCK_STRIPES];
+
+    public InMemoryUserStorage() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            friendLocks[i] = new Object();
+        }
+    }
 
     @Override
-    public User addUser(User user) {
+    public synchronized User addUser(User user) {
         if (users.containsValue(user)) {
             throw new ValidationException("User already created");
         }
         if (user.getName() == null || user.getName().isEmpty()) {
             user.setName(user.getLogin());
         }
-        user.setId(userId);
+        user.setId(userId.getAndIncrement());
         users.put(user.getId(), user);
-        generationId();
         log.debug("User created: {}", user);
         return user;
     }
 
+    @Override
+    public void addUsers(List<User> users) {
+        users.forEach(this::addUser);
+    }
+
     @Override
     public void deleteUser(long id) {
-        if(!users.containsKey(id)) {
+        if (users.remove(id) == null) {
             throw new EntityNotFoundException("User not found!");
         }
-        users.remove(id);
         log.debug("User with id: {} deleted", id);
     }
 
     @Override
     public User updateUser(User user) {
-        if (users.containsKey(user.getId())) {
-            if (user.getName() == null || user.getName().isEmpty()) {
-                user.setName(user.getLogin());
-            }
-            log.debug("Update user: {}", user);
-            users.put(user.getId(), user);
-            return user;
-        } else {
-            throw new EntityNotFoundException("User not found!");
+        if (user.getName() == null || user.getName().isEmpty()) {
+            user.setName(user.getLogin());
+        }
+        synchronized (friendLocks[stripe(user.getId())]) {
+            User stored = getUserById(user.getId());
+            user.keepFriendsOf(stored);
+            users.replace(user.getId(), user);
         }
+        log.debug("Update user: {}", user);
+        return user;
     }
 
     @Override
@@ -67,30 +91,62 @@ public class InMemoryUserStorage implements UserStorage {
         return new ArrayList<>(users.values());
     }
 
+    @Override
+    public List<User> getUsers(long afterId, int limit) {
+        if (limit <= 0) {
+            throw new ValidationException("Limit should be positive");
+        }
+        log.debug("Get {} users after id {}", limit, afterId);
+        return users.values().stream()
+                .filter(user -> user.getId() > afterId)
+                .sorted(Comparator.comparingLong(User::getId))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void streamUsers(Consumer<User> consumer) {
+        users.values().forEach(consumer);
+    }
+
     @Override
     public User getUserById(Long id) {
-        if(!users.containsKey(id)) {
+        User user = users.get(id);
+        if (user == null) {
             throw new EntityNotFoundException("User not found!");
         }
-        User user = users.get(id);
         log.debug("Get user: {}", user);
         return user;
     }
 
+    @Override
+    public List<User> getUsersByIds(List<Long> ids) {
+        return ids.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     public void addFriend(long userId, long friendId) {
-        User user = getUserById(userId);
-        User friend = getUserById(friendId);
-        user.addFriend(friend.getId());
-        friend.addFriend(user.getId());
-        log.debug("User {} and User {} are friends now!", user, friend);
+        synchronized (firstLock(userId, friendId)) {
+            synchronized (secondLock(userId, friendId)) {
+                getUserById(userId).addFriend(friendId);
+                getUserById(friendId).addFriend(userId);
+            }
+        }
+        log.debug("User {} and User {} are friends now!", userId, friendId);
     }
 
     public void deleteFriend(long userId, long friendId) {
-        User user = getUserById(userId);
-        User friend = getUserById(friendId);
-        user.deleteFriend(friendId);
-        friend.deleteFriend(userId);
-        log.debug("User {} and User {} are not friends anymore!", user, friend);
+        synchronized (firstLock(userId, friendId)) {
+            synchronized (secondLock(userId, friendId)) {
+                User user = getUserById(userId);
+                User friend = getUserById(friendId);
+                user.deleteFriend(friendId);
+                friend.deleteFriend(userId);
+            }
+        }
+        log.debug("User {} and User {} are not friends anymore!", userId, friendId);
     }
 
     public List<User> getFriends(long userId) {
@@ -100,23 +156,34 @@ public class InMemoryUserStorage implements UserStorage {
         }
         List<Long> userIdList = new ArrayList<>(user.getFriendsId());
         log.debug("Get friends by User: {}", user);
-        return userIdList.stream().map(this::getUserById).collect(Collectors.toList());
+        return getUsersByIds(userIdList);
     }
 
     public List<User> getCommonFriends(long userId, long otherUserId) {
-        List<User> friendsUsers = getFriends(userId);
-        friendsUsers.addAll(getFriends(otherUserId));
+        Set<Long> friendIds = getUserById(userId).getFriendsId();
+        Set<Long> otherFriendIds = getUserById(otherUserId).getFriendsId();
+        if (friendIds.size() > otherFriendIds.size()) {
+            Set<Long> smaller = otherFriendIds;
+            otherFriendIds = friendIds;
+            friendIds = smaller;
+        }
         log.debug("Get common friends User with id: {} and User with id: {}", userId, otherUserId);
-        return friendsUsers.stream()
-                .collect(Collectors.groupingBy(Function.identity()))
-                .entrySet()
-                .stream()
-                .filter(u -> u.getValue().size() > 1)
-                .map(Map.Entry::getKey)
+        return friendIds.stream()
+                .filter(otherFriendIds::contains)
+                .map(users::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
-    private void generationId() {
-        userId++;
+    private Object firstLock(long userId, long friendId) {
+        return friendLocks[Math.min(stripe(userId), stripe(friendId))];
+    }
+
+    private Object secondLock(long userId, long friendId) {
+        return friendLocks[Math.max(stripe(userId), stripe(friendId))];
+    }
+
+    private static int stripe(long userId) {
+        return (int) Math.floorMod(userId, (long) LOCK_STRIPES);
     }
 }
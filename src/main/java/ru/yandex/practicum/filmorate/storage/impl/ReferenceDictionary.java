@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.storage.impl;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exceptions.EntityNotFoundException;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.MpaStorage;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * GENRES and MPA_RATING are small reference tables seeded by the R__reference_data migration, so they are
+ * read once at startup into arrays indexed by id and resolved without I/O afterwards. Call {@link #reload()}
+ * after changing the tables.
+ */
+@Component
+@Slf4j
+public class ReferenceDictionary {
+    private final GenreStorage genreStorage;
+    private final MpaStorage mpaStorage;
+    private volatile Snapshot snapshot;
+
+    public ReferenceDictionary(@Qualifier("genreDbStorage") GenreStorage genreStorage,
+                               @Qualifier("mpaStorage") MpaStorage mpaStorage) {
+        this.genreStorage = genreStorage;
+        this.mpaStorage = mpaStorage;
+    }
+
+    public Genre getGenre(long id) {
+        Genre genre = lookup(getSnapshot().getGenres(), id);
+        if (genre == null) {
+            throw new EntityNotFoundException("Genre not found!");
+        }
+        return genre;
+    }
+
+    public List<Genre> getAllGenres() {
+        return getSnapshot().getAllGenres();
+    }
+
+    public Mpa getMpa(long id) {
+        Mpa mpa = lookup(getSnapshot().getMpa(), id);
+        if (mpa == null) {
+            throw new EntityNotFoundException("Mpa not found!");
+        }
+        return mpa;
+    }
+
+    public List<Mpa> getAllMpa() {
+        return getSnapshot().getAllMpa();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        List<Genre> genres = List.copyOf(genreStorage.getAllGenres());
+        List<Mpa> mpa = List.copyOf(mpaStorage.getAllMpa());
+        snapshot = new Snapshot(genres, index(genres, Genre[]::new, Genre::getId),
+                mpa, index(mpa, Mpa[]::new, Mpa::getId));
+        log.debug("Dictionaries loaded: {} genres, {} mpa", genres.size(), mpa.size());
+    }
+
+    private Snapshot getSnapshot() {
+        if (snapshot == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    reload();
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    private static <T> T lookup(T[] values, long id) {
+        return id >= 0 && id < values.length ? values[(int) id] : null;
+    }
+
+    private static <T> T[] index(List<T> values, IntFunction<T[]> arrayFactory, Function<T, Long> idGetter) {
+        int size = values.stream().mapToInt(value -> idGetter.apply(value).intValue() + 1).max().orElse(0);
+        T[] array = arrayFactory.apply(size);
+        values.forEach(value -> array[idGetter.apply(value).intValue()] = value);
+        return array;
+    }
+
+    @Value
+    private static class Snapshot {
+        List<Genre> allGenres;
+        Genre[] genres;
+        List<Mpa> allMpa;
+        Mpa[] mpa;
+    }
+}
@@ -2,26 +2,51 @@ package ru.yandex.practicum.filmorate.storage.impl;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exceptions.EntityNotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.model.UserBuilder;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Component
 @Qualifier("userDbStorage")
 @Slf4j
 public class UserDbStorage implements UserStorage {
+    private static final int IN_LIST_LIMIT = 1000;
+    private static final int STREAM_FETCH_SIZE = 500;
+
     private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final SimpleJdbcInsert userInsert;
 
     public UserDbStorage(JdbcTemplate jdbcTemplate) {
         this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.userInsert = new SimpleJdbcInsert(jdbcTemplate)
+                .withTableName("USERS")
+                .usingColumns("USER_LOGIN", "USER_NAME", "EMAIL", "BIRTHDAY")
+                .usingGeneratedKeyColumns("USER_ID");
     }
 
     @Override
@@ -29,17 +54,46 @@ public class UserDbStorage implements UserStorage {
         if (user.getName() == null || user.getName().isEmpty()) {
             user.setName(user.getLogin());
         }
-        String sql = "insert into USERS (USER_LOGIN, USER_NAME, EMAIL, BIRTHDAY) " +
-                "values (?, ?, ?, ?)";
-        jdbcTemplate.update(sql, user.getLogin(), user.getName(), user.getEmail(), user.getBirthday());
-        log.debug("User created");
+        user.setId(userInsert.executeAndReturnKey(user.toMap()).longValue());
+        user.setFriendsId(new HashSet<>());
+        log.debug("User created with id {}", user.getId());
+        return user;
+    }
 
-        String sql2 = "select * from USERS where USER_LOGIN = ? and USER_NAME = ? and EMAIL = ? and BIRTHDAY = ?";
-        return jdbcTemplate.queryForObject(sql2, this::mapRowToUser, user.getLogin(), user.getName(), user.getEmail(), user.getBirthday());//-
+    @Override
+    @Transactional
+    public void addUsers(List<User> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        String sql = "insert into USERS (USER_LOGIN, USER_NAME, EMAIL, BIRTHDAY) values (?, ?, ?, ?)";
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql, new String[]{"USER_ID"})) {
+                for (User user : users) {
+                    if (user.getName() == null || user.getName().isEmpty()) {
+                        user.setName(user.getLogin());
+                    }
+                    statement.setString(1, user.getLogin());
+                    statement.setString(2, user.getName());
+                    statement.setString(3, user.getEmail());
+                    statement.setObject(4, user.getBirthday());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                GeneratedKeys.setIds(statement, users, User::setId);
+            }
+            return null;
+        });
+        log.debug("Added {} users", users.size());
     }
 
     @Override
+    @Transactional
     public void deleteUser(long id) {
+        String likesSql = "update FILMS set LIKE_COUNT = LIKE_COUNT - 1 " +
+                "where FILM_ID in (select FILM_ID from LIKES where USER_ID = ?)";
+        jdbcTemplate.update(likesSql, id);
+
         String sql = "delete from USERS where USER_ID = ?";
         boolean isDelete = jdbcTemplate.update(sql, id) > 0;
         if (!isDelete) {
@@ -64,12 +118,50 @@ public class UserDbStorage implements UserStorage {
     @Override
     public List<User> getUsers() {
         String sql = "select * from USERS order by USER_ID";
-        List<User> users = jdbcTemplate.query(sql, this::mapRowToUser);
-        users.forEach(user -> user.setFriendsId(new HashSet<>(getListOfFriendIds(user.getId()))));
+        List<User> users = attachFriends(jdbcTemplate.query(sql, this::mapRowToUser));
         log.debug("Get all users");
         return users;
     }
 
+    @Override
+    public List<User> getUsers(long afterId, int limit) {
+        if (limit <= 0) {
+            throw new ValidationException("Limit should be positive");
+        }
+        String sql = "select * from USERS where USER_ID > ? order by USER_ID LIMIT ?";
+        List<User> users = attachFriends(jdbcTemplate.query(sql, this::mapRowToUser, afterId, limit));
+        log.debug("Get {} users after id {}", users.size(), afterId);
+        return users;
+    }
+
+    @Override
+    public void streamUsers(Consumer<User> consumer) {
+        String sql = "select U.*, F.FRIEND_ID from USERS as U left join FRIENDS as F on U.USER_ID = F.USER_ID " +
+                "order by U.USER_ID";
+        User[] current = new User[1];
+        RowCallbackHandler handler = resultSet -> {
+            long userId = resultSet.getLong("USER_ID");
+            if (current[0] == null || current[0].getId() != userId) {
+                if (current[0] != null) {
+                    consumer.accept(current[0]);
+                }
+                current[0] = mapRowToUser(resultSet, 0);
+            }
+            long friendId = resultSet.getLong("FRIEND_ID");
+            if (!resultSet.wasNull()) {
+                current[0].addFriend(friendId);
+            }
+        };
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, handler);
+        if (current[0] != null) {
+            consumer.accept(current[0]);
+        }
+    }
+
     @Override
     public User getUserById(Long id) {
         String sql = "select * from USERS where USER_ID = ?";
@@ -78,17 +170,38 @@ public class UserDbStorage implements UserStorage {
             log.debug("User with ID {} not found", id);
             throw new EntityNotFoundException("User not found");
         }
-        List<Long> friendIds = getListOfFriendIds(user.getId());
-        user.setFriendsId(new HashSet<>(friendIds));
+        attachFriends(List.of(user));
         log.debug("Get user with ID {}", id);
         return user;
     }
 
+    @Override
+    public List<User> getUsersByIds(List<Long> ids) {
+        String sql = "select * from USERS where USER_ID in (:ids)";
+        Map<Long, User> usersById = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += IN_LIST_LIMIT) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_LIST_LIMIT, ids.size()));
+            List<User> users = namedParameterJdbcTemplate.query(sql, new MapSqlParameterSource("ids", chunk),
+                    this::mapRowToUser);
+            attachFriends(users).forEach(user -> usersById.put(user.getId(), user));
+        }
+        return ids.stream()
+                .map(usersById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public void addFriend(long userId, long friendId) {
-        String sql = "insert into FRIENDS (USER_ID, FRIEND_ID) " +
-                "values (?, ?)";
-        jdbcTemplate.update(sql, userId, friendId);
+        String sql = "merge into FRIENDS as F " +
+                "using (select cast(? as integer) as USER_ID, cast(? as integer) as FRIEND_ID) as S " +
+                "on F.USER_ID = S.USER_ID and F.FRIEND_ID = S.FRIEND_ID " +
+                "when not matched then insert (USER_ID, FRIEND_ID) values (S.USER_ID, S.FRIEND_ID)";
+        try {
+            jdbcTemplate.update(sql, userId, friendId);
+        } catch (DuplicateKeyException e) {
+            // a concurrent request inserted the same friendship between the merge's check and its insert
+        }
         log.debug("Users with ID {}, {} are friends now!", userId, friendId);
     }
 
@@ -106,7 +219,7 @@ public class UserDbStorage implements UserStorage {
     public List<User> getFriends(long userId) {
         String sql = "select U.USER_ID, U.USER_LOGIN, U.USER_NAME, U.EMAIL, U.BIRTHDAY from FRIENDS as F " +
                 "left join USERS as U on F.FRIEND_ID = U.USER_ID where F.USER_ID = ?";
-        return jdbcTemplate.query(sql, this::mapRowToUser, userId);
+        return attachFriends(jdbcTemplate.query(sql, this::mapRowToUser, userId));
     }
 
     @Override
@@ -114,14 +227,30 @@ public class UserDbStorage implements UserStorage {
         String sql = "select * from USERS as U join (select FRIEND_ID from FRIENDS where USER_ID = ?) as F " +
                 " on U.USER_ID = F.FRIEND_ID join (select FRIEND_ID from FRIENDS where USER_ID = ?) as FO " +
                 "on U.USER_ID = FO.FRIEND_ID";
-        List<User> users = jdbcTemplate.query(sql, this::mapRowToUser, userId, otherUserId);
-        users.forEach(user -> user.setFriendsId(new HashSet<>(getListOfFriendIds(user.getId()))));
-        return users;
+        return attachFriends(jdbcTemplate.query(sql, this::mapRowToUser, userId, otherUserId));
     }
 
-    private List<Long> getListOfFriendIds(long userId) {
-        String sql = "select * from FRIENDS where USER_ID = ?";
-        return jdbcTemplate.query(sql, (resultSet, rowNum) -> resultSet.getLong("FRIEND_ID"), userId);
+    /**
+     * Fills friend ids of already mapped users with one query over FRIENDS, regardless of the number of users.
+     * Large result sets read the whole table instead of an IN list.
+     */
+    private List<User> attachFriends(List<User> users) {
+        if (users.isEmpty()) {
+            return users;
+        }
+        Map<Long, User> usersById = users.stream()
+                .collect(Collectors.toMap(User::getId, Function.identity(), (u1, u2) -> u1));
+        usersById.values().forEach(user -> user.setFriendsId(new HashSet<>()));
+        boolean allUsers = usersById.size() > IN_LIST_LIMIT;
+
+        String sql = "select USER_ID, FRIEND_ID from FRIENDS" + (allUsers ? "" : " where USER_ID in (:ids)");
+        namedParameterJdbcTemplate.query(sql, new MapSqlParameterSource("ids", usersById.keySet()), resultSet -> {
+            User user = usersById.get(resultSet.getLong("USER_ID"));
+            if (user != null) {
+                user.addFriend(resultSet.getLong("FRIEND_ID"));
+            }
+        });
+        return users;
     }
 
     private User mapRowToUser(ResultSet resultSet, int rowNum) throws SQLException {
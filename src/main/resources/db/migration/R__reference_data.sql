@@ -1,10 +1,3 @@
-delete from LIKES;
-delete from FILMS_GENRES;
-delete from FRIENDS;
-delete from FILMS;
-delete from USERS;
-alter table FILMS alter column FILM_ID restart with 1;
-alter table USERS alter column USER_ID restart with 1;
 merge into MPA_RATING (MPA_ID, MPA_NAME)
     values (1, 'G'),
            (2, 'PG'),
@@ -17,4 +10,4 @@ merge into GENRES (GENRE_ID, GENRE_NAME)
            (3, 'Мультфильм'),
            (4, 'Триллер'),
            (5, 'Документальный'),
-           (6, 'Боевик');
\ No newline at end of file
+           (6, 'Боевик');
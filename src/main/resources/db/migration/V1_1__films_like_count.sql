@@ -0,0 +1,4 @@
+-- V1 is the schema databases were created with before Flyway and is skipped for them by the baseline,
+-- so the like counter is added here; V2 fills it once duplicate likes are removed.
+alter table FILMS add column IF NOT EXISTS LIKE_COUNT INTEGER default 0 not null;
+create index IF NOT EXISTS FILMS_LIKE_COUNT_IDX on FILMS (LIKE_COUNT desc, FILM_ID);
@@ -0,0 +1,22 @@
+delete from LIKES where FILM_ID is null or USER_ID is null;
+delete from LIKES where _ROWID_ not in (select min(_ROWID_) from LIKES group by FILM_ID, USER_ID);
+alter table LIKES alter column FILM_ID set not null;
+alter table LIKES alter column USER_ID set not null;
+alter table LIKES add constraint LIKES_PK primary key (FILM_ID, USER_ID);
+create index LIKES_USER_IDX on LIKES (USER_ID, FILM_ID);
+
+delete from FRIENDS where USER_ID is null or FRIEND_ID is null;
+delete from FRIENDS where _ROWID_ not in (select min(_ROWID_) from FRIENDS group by USER_ID, FRIEND_ID);
+alter table FRIENDS alter column USER_ID set not null;
+alter table FRIENDS alter column FRIEND_ID set not null;
+alter table FRIENDS add constraint FRIENDS_PK primary key (USER_ID, FRIEND_ID);
+create index FRIENDS_FRIEND_IDX on FRIENDS (FRIEND_ID, USER_ID);
+
+delete from FILMS_GENRES where FILM_ID is null or GENRE_ID is null;
+delete from FILMS_GENRES where _ROWID_ not in (select min(_ROWID_) from FILMS_GENRES group by FILM_ID, GENRE_ID);
+alter table FILMS_GENRES alter column FILM_ID set not null;
+alter table FILMS_GENRES alter column GENRE_ID set not null;
+alter table FILMS_GENRES add constraint FILMS_GENRES_PK primary key (FILM_ID, GENRE_ID);
+create index FILMS_GENRES_GENRE_IDX on FILMS_GENRES (GENRE_ID, FILM_ID);
+
+update FILMS as F set LIKE_COUNT = (select count(*) from LIKES as L where L.FILM_ID = F.FILM_ID);
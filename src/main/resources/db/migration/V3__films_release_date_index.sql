@@ -0,0 +1 @@
+create index FILMS_RELEASE_DATE_IDX on FILMS (RELEASE_DATE, LIKE_COUNT);
@@ -0,0 +1,79 @@
+package StorageTests;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.BulkImportResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.BulkImportService;
+import ru.yandex.practicum.filmorate.storage.impl.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.impl.UserDbStorage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(classes = FilmorateApplication.class, properties = "filmorate.bulk.batch-size=2")
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class BulkImportTest {
+    private final BulkImportService bulkImportService;
+    private final UserDbStorage userStorage;
+    private final FilmDbStorage filmStorage;
+
+    @Sql("classpath:/data.sql")
+    @Order(1)
+    @Test
+    void should_Import_Valid_Users_And_Report_Invalid_Lines() throws IOException {
+        BulkImportResult result = bulkImportService.importUsers(ndjson(
+                "{\"login\":\"user1\",\"email\":\"user1@mail.ru\",\"birthday\":\"1990-01-01\"}",
+                "{\"login\":\"user2\",\"name\":\"Ann\",\"email\":\"user2@mail.ru\",\"birthday\":\"1990-01-01\"}",
+                "{\"login\":\"user3\",\"email\":\"user3@mail.ru\",\"birthday\":\"yesterday\"}",
+                "",
+                "{\"login\":\"user4\",\"email\":\"user4@mail.ru\",\"birthday\":\"2990-01-01\"}",
+                "{\"login\":\"user5\",\"email\":\"user5@mail.ru\",\"birthday\":\"1990-01-01\"}",
+                "{\"login\":\"user6\","));
+
+        assertEquals(3, result.getImported());
+        assertEquals(3, result.getFailed());
+        assertThat(result.getErrors()).extracting(BulkImportResult.RecordError::getLine)
+                .containsExactly(3L, 5L, 7L);
+        assertThat(result.getErrors().get(2).getMessage()).startsWith("Malformed JSON, import stopped");
+        assertThat(userStorage.getUsers()).extracting(User::getName)
+                .containsExactly("user1", "Ann", "user5");
+    }
+
+    @Order(2)
+    @Test
+    void should_Import_Films_With_Genres_And_Isolate_Rejected_Records() throws IOException {
+        BulkImportResult result = bulkImportService.importFilms(ndjson(
+                "{\"name\":\"Film1\",\"description\":\"d\",\"releaseDate\":\"1990-01-01\",\"duration\":100," +
+                        "\"mpa\":{\"id\":1},\"genres\":[{\"id\":1},{\"id\":2}]}",
+                "{\"name\":\"Film2\",\"description\":\"d\",\"releaseDate\":\"1990-01-01\",\"duration\":100," +
+                        "\"mpa\":{\"id\":1},\"genres\":[{\"id\":99}]}",
+                "{\"name\":\"Film3\",\"description\":\"d\",\"releaseDate\":\"1990-01-01\",\"duration\":100}",
+                "{\"name\":\"Film4\",\"description\":\"d\",\"releaseDate\":\"1990-01-01\",\"duration\":100," +
+                        "\"mpa\":{\"id\":2}}"));
+
+        assertEquals(2, result.getImported());
+        assertEquals(2, result.getFailed());
+        assertThat(result.getErrors()).extracting(BulkImportResult.RecordError::getLine).containsExactly(2L, 3L);
+        assertThat(filmStorage.getFilms()).extracting(Film::getName).containsExactly("Film1", "Film4");
+        assertThat(filmStorage.getFilms().get(0).getGenres()).hasSize(2);
+    }
+
+    private InputStream ndjson(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+}
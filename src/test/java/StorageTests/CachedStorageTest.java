@@ -0,0 +1,81 @@
+package StorageTests;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.test.context.jdbc.Sql;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.*;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = FilmorateApplication.class)
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class CachedStorageTest {
+    private final FilmService filmService;
+    private final UserService userService;
+    private final CacheManager cacheManager;
+
+    @Sql("classpath:/data.sql")
+    @Order(1)
+    @Test
+    void should_Read_Film_From_Cache_And_Evict_On_Like() {
+        filmService.addFilm(FilmBuilder.builder()
+                .name("Film1")
+                .description("description")
+                .releaseDate(LocalDate.of(1995, 10, 12))
+                .duration(150)
+                .mpa(Mpa.builder().id(1L).build())
+                .build());
+        userService.addUser(UserBuilder.builder()
+                .login("qwe")
+                .email("qw@yandex.ru")
+                .birthday(LocalDate.of(1995, 12, 27))
+                .build());
+
+        long hitsBefore = cacheStats("films").hitCount();
+        Film film = filmService.getFilmById(1L);
+        assertSame(film, filmService.getFilmById(1L));
+        assertEquals(hitsBefore + 1, cacheStats("films").hitCount());
+
+        filmService.addLike(1L, 1L);
+        Film likedFilm = filmService.getFilmById(1L);
+        assertNotSame(film, likedFilm);
+        assertEquals(1, likedFilm.getLikesCount());
+    }
+
+    @Order(2)
+    @Test
+    void should_Evict_Both_Users_On_Friendship_Change() {
+        userService.addUser(UserBuilder.builder()
+                .login("asd")
+                .email("as@yandex.ru")
+                .birthday(LocalDate.of(1995, 12, 27))
+                .build());
+        User user = userService.getUserById(1L);
+        assertSame(user, userService.getUserById(1L));
+
+        userService.addFriend(1L, 2L);
+        assertThat(userService.getUserById(1L).getFriendsId()).containsExactly(2L);
+
+        userService.deleteFriend(1L, 2L);
+        assertThat(userService.getUserById(1L).getFriendsId()).isEmpty();
+    }
+
+    private CacheStats cacheStats(String name) {
+        return ((CaffeineCache) cacheManager.getCache(name)).getNativeCache().stats();
+    }
+}
@@ -0,0 +1,135 @@
+package StorageTests;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.FilmBuilder;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.UserBuilder;
+import ru.yandex.practicum.filmorate.storage.impl.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.impl.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(classes = FilmorateApplication.class)
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class DbStorageConcurrencyTest {
+    private static final int CLIENTS = 64;
+    private static final int USERS = 8;
+    private static final int ROUNDS = 5;
+
+    private final FilmDbStorage filmStorage;
+    private final UserDbStorage userStorage;
+    private final JdbcTemplate jdbcTemplate;
+    private ExecutorService executor;
+
+    @BeforeAll
+    void setUp() {
+        executor = Executors.newFixedThreadPool(CLIENTS);
+    }
+
+    @AfterAll
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    void addFilmsAndUsers() {
+        Mpa mpa = Mpa.builder().id(1L).name("G").build();
+        for (int i = 1; i <= 2; i++) {
+            filmStorage.addFilm(FilmBuilder.builder()
+                    .name("Film" + i)
+                    .description("description")
+                    .releaseDate(LocalDate.of(1995, 10, 12))
+                    .duration(150)
+                    .mpa(mpa)
+                    .build());
+        }
+        for (int i = 1; i <= USERS; i++) {
+            userStorage.addUser(UserBuilder.builder()
+                    .name("User" + i)
+                    .login("qwe")
+                    .email("qw@yandex.ru")
+                    .birthday(LocalDate.of(1995, 12, 27))
+                    .build());
+        }
+    }
+
+    @Sql("classpath:/data.sql")
+    @Order(1)
+    @Test
+    void should_Store_Each_Like_Once_When_Retried_By_Concurrent_Clients() throws Exception {
+        addFilmsAndUsers();
+        AtomicInteger added = new AtomicInteger();
+
+        runConcurrently(client -> {
+            for (int i = 0; i < ROUNDS; i++) {
+                for (long userId = 1; userId <= USERS; userId++) {
+                    if (filmStorage.addLike(1, userId)) {
+                        added.incrementAndGet();
+                    }
+                }
+            }
+        });
+
+        assertEquals(USERS, added.get());
+        assertEquals(USERS, jdbcTemplate.queryForObject("select count(*) from LIKES", Integer.class));
+        assertEquals(USERS, filmStorage.getFilmById(1).getLikesCount());
+        assertEquals(1L, filmStorage.getBestFilms(1).get(0).getId());
+        assertEquals(0, filmStorage.recalculateLikeCounts());
+    }
+
+    @Sql("classpath:/data.sql")
+    @Order(2)
+    @Test
+    void should_Store_Each_Friendship_Once_When_Retried_By_Concurrent_Clients() throws Exception {
+        addFilmsAndUsers();
+
+        runConcurrently(client -> {
+            for (int i = 0; i < ROUNDS; i++) {
+                for (long friendId = 2; friendId <= USERS; friendId++) {
+                    userStorage.addFriend(1, friendId);
+                    userStorage.addFriend(friendId, 1);
+                }
+            }
+        });
+
+        assertEquals(2 * (USERS - 1), jdbcTemplate.queryForObject("select count(*) from FRIENDS", Integer.class));
+        assertEquals(USERS - 1, userStorage.getFriends(1).size());
+        assertEquals(1, userStorage.getCommonFriends(2, 3).size());
+    }
+
+    private void runConcurrently(ClientTask task) throws Exception {
+        CyclicBarrier start = new CyclicBarrier(CLIENTS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int client = 0; client < CLIENTS; client++) {
+            int number = client;
+            futures.add(executor.submit(() -> {
+                start.await();
+                task.run(number);
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ClientTask {
+        void run(int client) throws Exception;
+    }
+}
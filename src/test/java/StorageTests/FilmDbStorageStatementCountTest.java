@@ -0,0 +1,156 @@
+package StorageTests;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.jdbc.Sql;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.*;
+import ru.yandex.practicum.filmorate.storage.impl.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.impl.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = FilmorateApplication.class)
+@AutoConfigureTestDatabase
+@Import(StatementCounter.class)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class FilmDbStorageStatementCountTest {
+    private static final int FILM_STATEMENTS = 2;
+
+    private final FilmDbStorage filmStorage;
+    private final UserDbStorage userStorage;
+    private final StatementCounter statementCounter;
+
+    void addFilms(int count) {
+        Mpa mpa = Mpa.builder().id(2L).build();
+        for (int i = 0; i < count; i++) {
+            Film film = FilmBuilder.builder()
+                    .name("Film" + i)
+                    .description("description")
+                    .releaseDate(LocalDate.of(1995, 10, 12))
+                    .duration(150)
+                    .mpa(mpa)
+                    .genres(Set.of(Genre.builder().id(1L).build()))
+                    .build();
+            filmStorage.addFilm(film);
+        }
+    }
+
+    @Sql("classpath:/data.sql")
+    @Order(1)
+    @Test
+    void should_Assemble_Films_With_Genres_Mpa_And_Likes() {
+        addFilms(3);
+        userStorage.addUser(UserBuilder.builder()
+                .name("User1")
+                .login("qwe")
+                .email("qw@yandex.ru")
+                .birthday(LocalDate.of(1995, 12, 27))
+                .build());
+        filmStorage.addLike(2, 1);
+
+        Film film = filmStorage.getFilmById(2L);
+        assertEquals("PG", film.getMpa().getName());
+        assertThat(film.getGenres()).extracting(Genre::getName).containsExactly("Комедия");
+        assertEquals(1, film.getLikesCount());
+        assertThat(film.getIdUsersLike()).isEmpty();
+        assertEquals(0, filmStorage.getFilmById(1L).getLikesCount());
+    }
+
+    @Order(2)
+    @Test
+    void should_Use_Fixed_Number_Of_Statements_For_Get_Films() {
+        statementCounter.reset();
+        List<Film> films = filmStorage.getFilms();
+        assertEquals(3, films.size());
+        assertEquals(FILM_STATEMENTS, statementCounter.getCount());
+
+        addFilms(20);
+        statementCounter.reset();
+        films = filmStorage.getFilms();
+        assertEquals(23, films.size());
+        assertEquals(FILM_STATEMENTS, statementCounter.getCount());
+    }
+
+    @Order(3)
+    @Test
+    void should_Use_Fixed_Number_Of_Statements_For_Get_Best_Films() {
+        statementCounter.reset();
+        List<Film> films = filmStorage.getBestFilms(10);
+        assertEquals(10, films.size());
+        assertEquals(2L, films.get(0).getId());
+        assertEquals(FILM_STATEMENTS, statementCounter.getCount());
+    }
+
+    @Order(4)
+    @Test
+    void should_Use_Fixed_Number_Of_Statements_For_Get_Film_By_Id() {
+        statementCounter.reset();
+        filmStorage.getFilmById(2L);
+        assertEquals(FILM_STATEMENTS, statementCounter.getCount());
+    }
+
+    @Order(5)
+    @Test
+    void should_Use_Fixed_Number_Of_Statements_For_Saving_Genres() {
+        Film film = FilmBuilder.builder()
+                .name("Genres")
+                .description("description")
+                .releaseDate(LocalDate.of(1995, 10, 12))
+                .duration(150)
+                .mpa(Mpa.builder().id(1L).build())
+                .genres(Set.of(Genre.builder().id(1L).build()))
+                .build();
+        statementCounter.reset();
+        long filmId = filmStorage.addFilm(film).getId();
+        int oneGenreStatements = statementCounter.getCount();
+
+        Film update = FilmBuilder.builder()
+                .id(filmId)
+                .name("Genres")
+                .description("description")
+                .releaseDate(LocalDate.of(1995, 10, 12))
+                .duration(150)
+                .mpa(Mpa.builder().id(1L).build())
+                .genres(Set.of(Genre.builder().id(1L).build(), Genre.builder().id(2L).build(),
+                        Genre.builder().id(3L).build(), Genre.builder().id(4L).build()))
+                .build();
+        statementCounter.reset();
+        Film updatedFilm = filmStorage.updateFilm(update);
+        assertThat(updatedFilm.getGenres()).extracting(Genre::getId).containsExactly(1L, 2L, 3L, 4L);
+        assertEquals(oneGenreStatements + 1, statementCounter.getCount());
+    }
+
+    @Order(6)
+    @Test
+    void should_Use_One_Statement_For_Like_And_Unlike() {
+        statementCounter.reset();
+        assertTrue(filmStorage.addLike(3, 1));
+        assertEquals(1, statementCounter.getCount());
+
+        statementCounter.reset();
+        filmStorage.deleteLike(3, 1);
+        assertEquals(1, statementCounter.getCount());
+
+        // only a like that changes nothing checks the film
+        statementCounter.reset();
+        assertFalse(filmStorage.addLike(2, 1));
+        assertEquals(2, statementCounter.getCount());
+
+        assertEquals(1, filmStorage.getFilmById(2L).getLikesCount());
+        assertEquals(0, filmStorage.getFilmById(3L).getLikesCount());
+    }
+}
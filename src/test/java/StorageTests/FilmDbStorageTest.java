@@ -7,9 +7,11 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.jdbc.Sql;
 import ru.yandex.practicum.filmorate.FilmorateApplication;
 import ru.yandex.practicum.filmorate.exceptions.EntityNotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
 import ru.yandex.practicum.filmorate.model.*;
 import ru.yandex.practicum.filmorate.storage.impl.FilmDbStorage;
 import ru.yandex.practicum.filmorate.storage.impl.UserDbStorage;
@@ -20,6 +22,7 @@ import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @SpringBootTest(classes = FilmorateApplication.class)
@@ -30,6 +33,7 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 class FilmDbStorageTest {
     private final FilmDbStorage filmStorage;
     private final UserDbStorage userStorage;
+    private final JdbcTemplate jdbcTemplate;
 
     void addFilm() {
         Mpa mpa = Mpa.builder().id(1L).name("G").build();
@@ -88,7 +92,7 @@ class FilmDbStorageTest {
         filmStorage.addLike(3, 2);
     }
 
-    @Sql({"classpath:/schema.sql", "classpath:/data.sql"})
+    @Sql("classpath:/data.sql")
     @Order(1)
     @Test()
     void add_Film_Test() {
@@ -192,16 +196,16 @@ class FilmDbStorageTest {
     void should_Add_Like_When_User_Created_And_Film_Created() {
         filmStorage.addLike(1,1);
         Optional<Film> filmOptional = Optional.ofNullable(filmStorage.getFilmById(1L));
-        assertThat(filmOptional).isPresent().hasValueSatisfying(film -> assertThat(film.getIdUsersLike()).hasSize(1));
+        assertThat(filmOptional).isPresent().hasValueSatisfying(film -> assertEquals(1, film.getLikesCount()));
         filmStorage.addLike(1,2);
         Optional<Film> filmOptional2 = Optional.ofNullable(filmStorage.getFilmById(1L));
-        assertThat(filmOptional2).isPresent().hasValueSatisfying(film -> assertThat(film.getIdUsersLike()).hasSize(2));
+        assertThat(filmOptional2).isPresent().hasValueSatisfying(film -> assertEquals(2, film.getLikesCount()));
     }
 
     @Order(8)
     @Test
     void should_Not_Add_Like_When_User_Not_Created_Or_Film_Not_Created() {
-        assertThrows(DataIntegrityViolationException.class, () -> filmStorage.addLike(1111,1));
+        assertThrows(EntityNotFoundException.class, () -> filmStorage.addLike(1111,1));
         assertThrows(DataIntegrityViolationException.class, () -> filmStorage.addLike(1,2222));
     }
 
@@ -209,10 +213,10 @@ class FilmDbStorageTest {
     @Test
     void should_Delete_Like_When_User_Created_And_Film_Created() {
         Optional<Film> filmOptional = Optional.ofNullable(filmStorage.getFilmById(1L));
-        assertThat(filmOptional).isPresent().hasValueSatisfying(film -> assertThat(film.getIdUsersLike()).hasSize(2));
+        assertThat(filmOptional).isPresent().hasValueSatisfying(film -> assertEquals(2, film.getLikesCount()));
         filmStorage.deleteLike(1,2);
         Optional<Film> filmOptional2 = Optional.ofNullable(filmStorage.getFilmById(1L));
-        assertThat(filmOptional2).isPresent().hasValueSatisfying(film -> assertThat(film.getIdUsersLike()).hasSize(1));
+        assertThat(filmOptional2).isPresent().hasValueSatisfying(film -> assertEquals(1, film.getLikesCount()));
     }
 
     @Order(10)
@@ -239,4 +243,56 @@ class FilmDbStorageTest {
         Optional<List<Film>> filmList3 = Optional.ofNullable(filmStorage.getBestFilms(200));
         assertThat(filmList3).isPresent().hasValueSatisfying(users -> assertEquals(3, users.size()));
     }
-}
\ No newline at end of file
+
+    @Order(12)
+    @Test
+    void should_Repair_Like_Counts_From_Likes() {
+        jdbcTemplate.update("update FILMS set LIKE_COUNT = 0");
+        assertEquals(1L, filmStorage.getBestFilms(1).get(0).getId());
+
+        assertEquals(3, filmStorage.recalculateLikeCounts());
+
+        Optional<List<Film>> filmList = Optional.ofNullable(filmStorage.getBestFilms(3));
+        assertThat(filmList).isPresent().hasValueSatisfying(films -> {
+            assertEquals(2L, films.get(0).getId());
+            assertEquals(3L, films.get(1).getId());
+            assertEquals(1L, films.get(2).getId());
+        });
+        assertEquals(0, filmStorage.recalculateLikeCounts());
+    }
+
+    @Order(13)
+    @Test
+    void should_Get_Best_Films_Of_Genre_And_Year() {
+        jdbcTemplate.update("insert into FILMS_GENRES (FILM_ID, GENRE_ID) values (1, 1), (3, 1)");
+
+        assertThat(filmStorage.getBestFilms(10, null, 1995)).extracting(Film::getId).containsExactly(2L, 3L, 1L);
+        assertThat(filmStorage.getBestFilms(10, null, 1996)).isEmpty();
+        assertThat(filmStorage.getBestFilms(10, 1L, null)).extracting(Film::getId).containsExactly(3L, 1L);
+        assertThat(filmStorage.getBestFilms(1, 1L, 1995)).extracting(Film::getId).containsExactly(3L);
+        assertThat(filmStorage.getBestFilms(10, 2L, 1995)).isEmpty();
+        assertThrows(ValidationException.class, () -> filmStorage.getBestFilms(10, null, Integer.MAX_VALUE));
+    }
+
+    @Order(14)
+    @Test
+    void should_Page_Likes_Of_Film() {
+        assertEquals(List.of(1L, 2L), filmStorage.getLikes(2L, 0, 2));
+        assertEquals(List.of(3L), filmStorage.getLikes(2L, 2, 2));
+        assertEquals(List.of(), filmStorage.getLikes(2L, 3, 2));
+        assertEquals(List.of(1L), filmStorage.getLikes(1L, 0, 10));
+        assertThrows(EntityNotFoundException.class, () -> filmStorage.getLikes(555L, 0, 10));
+        assertThrows(ValidationException.class, () -> filmStorage.getLikes(2L, 0, 0));
+    }
+
+    @Order(15)
+    @Test
+    void should_Ignore_Repeated_Like() {
+        assertFalse(filmStorage.addLike(2L, 1L));
+        assertFalse(filmStorage.addLike(2L, 1L));
+
+        assertEquals(List.of(1L, 2L, 3L), filmStorage.getLikes(2L, 0, 10));
+        assertEquals(3, filmStorage.getFilmById(2L).getLikesCount());
+        assertEquals(0, filmStorage.recalculateLikeCounts());
+    }
+}
@@ -0,0 +1,86 @@
+package StorageTests;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FlywayMigrationTest {
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void should_Migrate_Database_Created_From_Schema_Before_Flyway() {
+        new ResourceDatabasePopulator(new ClassPathResource("baseline_schema.sql")).execute(database);
+        jdbcTemplate.update("insert into MPA_RATING (MPA_ID, MPA_NAME) values (1, 'G')");
+        jdbcTemplate.update("insert into FILMS (FILM_NAME, MPA_ID) values ('Film1', 1), ('Film2', 1)");
+        jdbcTemplate.update("insert into USERS (USER_LOGIN) values ('user1'), ('user2')");
+        jdbcTemplate.update("insert into LIKES (FILM_ID, USER_ID) values (1, 1), (1, 1), (1, 2), (2, 2)");
+        jdbcTemplate.update("insert into FRIENDS (USER_ID, FRIEND_ID) values (1, 2), (1, 2)");
+
+        Flyway.configure()
+                .dataSource(database)
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+
+        assertEquals(3, jdbcTemplate.queryForObject("select count(*) from LIKES", Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from FRIENDS", Integer.class));
+        assertThat(jdbcTemplate.queryForList("select LIKE_COUNT from FILMS order by FILM_ID", Integer.class))
+                .containsExactly(2, 1);
+        assertThat(jdbcTemplate.queryForList("select INDEX_NAME from INFORMATION_SCHEMA.INDEXES " +
+                "where TABLE_NAME = 'FILMS'", String.class))
+                .contains("FILMS_LIKE_COUNT_IDX", "FILMS_RELEASE_DATE_IDX");
+        assertEquals(6, jdbcTemplate.queryForObject("select count(*) from GENRES", Integer.class));
+    }
+
+    /**
+     * The storage tests run on the schema Flyway creates, this checks that schema has every table, key and index.
+     */
+    @Test
+    void should_Create_Same_Schema_On_Empty_Database() {
+        Flyway.configure().dataSource(database).load().migrate();
+
+        assertThat(jdbcTemplate.queryForList("select TABLE_NAME from INFORMATION_SCHEMA.TABLES " +
+                "where TABLE_SCHEMA = 'PUBLIC'", String.class))
+                .contains("MPA_RATING", "FILMS", "GENRES", "FILMS_GENRES", "USERS", "FRIENDS", "LIKES");
+        assertThat(jdbcTemplate.queryForList("select CONSTRAINT_NAME from INFORMATION_SCHEMA.TABLE_CONSTRAINTS " +
+                "where CONSTRAINT_TYPE = 'PRIMARY KEY'", String.class))
+                .contains("MPA_KEY", "FILM_KEY", "GENRES_KEY", "USER_PK", "FILMS_GENRES_PK", "FRIENDS_PK", "LIKES_PK");
+        assertThat(jdbcTemplate.queryForList("select CONSTRAINT_NAME from INFORMATION_SCHEMA.TABLE_CONSTRAINTS " +
+                "where CONSTRAINT_TYPE = 'FOREIGN KEY'", String.class))
+                .contains("MPA_RATING_FK", "FILMS_FK", "GENRES_FK", "FRIEND_ID", "USER_FK", "FILM_FK", "USER_LIKE_FK");
+        assertThat(jdbcTemplate.queryForList("select INDEX_NAME from INFORMATION_SCHEMA.INDEXES", String.class))
+                .contains("FILMS_LIKE_COUNT_IDX", "FILMS_RELEASE_DATE_IDX", "LIKES_USER_IDX", "FRIENDS_FRIEND_IDX",
+                        "FILMS_GENRES_GENRE_IDX");
+        assertThat(jdbcTemplate.queryForList("select COLUMN_NAME from INFORMATION_SCHEMA.COLUMNS " +
+                "where TABLE_NAME = 'FILMS'", String.class))
+                .contains("LIKE_COUNT");
+        assertEquals(5, jdbcTemplate.queryForObject("select count(*) from MPA_RATING", Integer.class));
+        assertEquals(6, jdbcTemplate.queryForObject("select count(*) from GENRES", Integer.class));
+    }
+}
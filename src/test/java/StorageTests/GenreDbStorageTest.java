@@ -61,7 +61,7 @@ class GenreDbStorageTest {
         filmDbStorage.addFilm(film3);
     }
 
-    @Sql({"classpath:/schema.sql", "classpath:/data.sql"})
+    @Sql("classpath:/data.sql")
     @Order(1)
     @Test
     void addGenreToFilm() {
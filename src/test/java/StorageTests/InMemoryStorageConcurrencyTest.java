@@ -0,0 +1,204 @@
+package StorageTests;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exceptions.EntityNotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmBuilder;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserBuilder;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryStorageConcurrencyTest {
+    private static final int THREADS = 16;
+    private static final int USERS = 64;
+    private static final int ROUNDS = 200;
+
+    private ExecutorService executor;
+    private InMemoryUserStorage userStorage;
+    private InMemoryFilmStorage filmStorage;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(THREADS);
+        userStorage = new InMemoryUserStorage();
+        filmStorage = new InMemoryFilmStorage(userStorage);
+        for (int i = 1; i <= USERS; i++) {
+            userStorage.addUser(user(i));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void should_Assign_Unique_Ids_To_Concurrently_Added_Films() throws Exception {
+        runConcurrently(thread -> {
+            for (int i = 0; i < ROUNDS; i++) {
+                filmStorage.addFilm(film("Film " + thread + "-" + i));
+            }
+        });
+
+        Set<Long> ids = filmStorage.getFilms().stream().map(Film::getId).collect(Collectors.toSet());
+        assertEquals(THREADS * ROUNDS, ids.size());
+        assertEquals(LongStream.rangeClosed(1, THREADS * ROUNDS).boxed().collect(Collectors.toSet()), ids);
+    }
+
+    @Test
+    void should_Keep_All_Likes_Of_Concurrent_Users() throws Exception {
+        long filmId = filmStorage.addFilm(film("Film")).getId();
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < ROUNDS; i++) {
+                for (long userId = thread + 1; userId <= USERS; userId += THREADS) {
+                    filmStorage.addLike(filmId, userId);
+                    filmStorage.deleteLike(filmId, userId);
+                    filmStorage.addLike(filmId, userId);
+                }
+            }
+        });
+
+        assertEquals(LongStream.rangeClosed(1, USERS).boxed().collect(Collectors.toSet()),
+                filmStorage.getFilmById(filmId).getIdUsersLike());
+        assertEquals(USERS, filmStorage.getBestFilms(1).get(0).getIdUsersLike().size());
+    }
+
+    @RepeatedTest(20)
+    void should_Delete_Like_Exactly_Once_When_Deleted_Concurrently() throws Exception {
+        long filmId = filmStorage.addFilm(film("Film")).getId();
+        filmStorage.addLike(filmId, 1);
+        AtomicInteger deleted = new AtomicInteger();
+        AtomicInteger notFound = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            try {
+                filmStorage.deleteLike(filmId, 1);
+                deleted.incrementAndGet();
+            } catch (EntityNotFoundException e) {
+                notFound.incrementAndGet();
+            }
+        });
+
+        assertEquals(1, deleted.get());
+        assertEquals(THREADS - 1, notFound.get());
+        assertTrue(filmStorage.getFilmById(filmId).getIdUsersLike().isEmpty());
+    }
+
+    @Test
+    void should_Keep_Friendships_Mutual_Under_Concurrent_Changes() throws Exception {
+        runConcurrently(thread -> {
+            for (int i = 0; i < ROUNDS; i++) {
+                long userId = (thread + i) % USERS + 1;
+                long friendId = (thread * 7 + i * 3) % USERS + 1;
+                if (userId == friendId) {
+                    continue;
+                }
+                userStorage.addFriend(userId, friendId);
+                if (i % 2 == 0) {
+                    try {
+                        userStorage.deleteFriend(friendId, userId);
+                    } catch (EntityNotFoundException e) {
+                        // another thread has already deleted this friendship
+                    }
+                }
+            }
+        });
+
+        for (User user : userStorage.getUsers()) {
+            for (long friendId : user.getFriendsId()) {
+                assertTrue(userStorage.getUserById(friendId).getFriendsId().contains(user.getId()),
+                        "Friendship of " + user.getId() + " and " + friendId + " is one-way");
+            }
+        }
+    }
+
+    @Test
+    void should_Keep_Likes_And_Friends_Added_While_Updating() throws Exception {
+        long filmId = filmStorage.addFilm(film("Film")).getId();
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < ROUNDS; i++) {
+                if (thread % 2 == 0) {
+                    Film update = film("Film");
+                    update.setId(filmId);
+                    filmStorage.updateFilm(update);
+                    User user = user(1);
+                    user.setId(1);
+                    userStorage.updateUser(user);
+                } else {
+                    for (long userId = thread + 1; userId <= USERS; userId += THREADS) {
+                        filmStorage.addLike(filmId, userId);
+                        if (userId != 1) {
+                            userStorage.addFriend(1, userId);
+                        }
+                    }
+                }
+            }
+        });
+
+        Set<Long> expected = LongStream.rangeClosed(1, USERS)
+                .filter(userId -> (userId - 1) % THREADS % 2 == 1)
+                .boxed()
+                .collect(Collectors.toSet());
+        Film film = filmStorage.getFilmById(filmId);
+        assertEquals(expected, film.getIdUsersLike());
+        assertEquals(expected.size(), film.getLikesCount());
+        assertEquals(expected, userStorage.getUserById(1L).getFriendsId());
+    }
+
+    private void runConcurrently(ThreadTask task) throws Exception {
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int number = thread;
+            futures.add(executor.submit(() -> {
+                start.await();
+                task.run(number);
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private static User user(int number) {
+        return UserBuilder.builder()
+                .login("user" + number)
+                .name("User " + number)
+                .email("user" + number + "@yandex.ru")
+                .birthday(LocalDate.of(1995, 12, 27))
+                .build();
+    }
+
+    private static Film film(String name) {
+        return FilmBuilder.builder()
+                .name(name)
+                .description("description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(120)
+                .build();
+    }
+
+    @FunctionalInterface
+    private interface ThreadTask {
+        void run(int thread);
+    }
+}
@@ -0,0 +1,260 @@
+package StorageTests;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.jdbc.Sql;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.exceptions.EntityNotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.ServiceUnavailableException;
+import ru.yandex.practicum.filmorate.model.FilmBuilder;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.UserBuilder;
+import ru.yandex.practicum.filmorate.service.LikeWriteBehind;
+import ru.yandex.practicum.filmorate.service.PopularFilmsLeaderboard;
+import ru.yandex.practicum.filmorate.storage.impl.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.impl.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = FilmorateApplication.class)
+@AutoConfigureTestDatabase
+@Import(StatementCounter.class)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class LikeWriteBehindTest {
+    private static final long NEVER = 60_000;
+
+    private final FilmDbStorage filmStorage;
+    private final UserDbStorage userStorage;
+    private final StatementCounter statementCounter;
+    private PopularFilmsLeaderboard leaderboard;
+
+    void addFilmsAndUsers() {
+        Mpa mpa = Mpa.builder().id(1L).name("G").build();
+        for (int i = 1; i <= 2; i++) {
+            filmStorage.addFilm(FilmBuilder.builder()
+                    .name("Film" + i)
+                    .description("description")
+                    .releaseDate(LocalDate.of(1995, 10, 12))
+                    .duration(150)
+                    .mpa(mpa)
+                    .build());
+        }
+        for (int i = 1; i <= 3; i++) {
+            userStorage.addUser(UserBuilder.builder()
+                    .name("User" + i)
+                    .login("qwe")
+                    .email("qw@yandex.ru")
+                    .birthday(LocalDate.of(1995, 12, 27))
+                    .build());
+        }
+    }
+
+    private LikeWriteBehind writeBehind(int capacity, int batchSize) {
+        return writeBehind(capacity, batchSize, 50);
+    }
+
+    private LikeWriteBehind writeBehind(int capacity, int batchSize, long offerTimeoutMillis) {
+        leaderboard = new PopularFilmsLeaderboard();
+        leaderboard.load(filmStorage.getFilmPopularity());
+        return new LikeWriteBehind(filmStorage, leaderboard, true, capacity, batchSize, NEVER, offerTimeoutMillis);
+    }
+
+    @Sql("classpath:/data.sql")
+    @Order(1)
+    @Test
+    void should_Cancel_Like_Followed_By_Unlike_Before_Writing() throws InterruptedException {
+        addFilmsAndUsers();
+        LikeWriteBehind writeBehind = writeBehind(100, 100);
+        writeBehind.start();
+
+        assertTrue(writeBehind.addLike(1, 1));
+        assertFalse(writeBehind.addLike(1, 1));
+        assertEquals(1, writeBehind.pendingCount());
+        writeBehind.deleteLike(1, 1);
+        assertEquals(0, writeBehind.pendingCount());
+        assertThrows(EntityNotFoundException.class, () -> writeBehind.deleteLike(1, 1));
+        writeBehind.stop();
+
+        assertThat(filmStorage.getLikes(1, 0, 10)).isEmpty();
+        assertEquals(0, filmStorage.getFilmById(1).getLikesCount());
+    }
+
+    @Sql("classpath:/data.sql")
+    @Order(2)
+    @Test
+    void should_Show_Pending_Likes_To_Liking_User_And_Write_Them_On_Stop() throws InterruptedException {
+        addFilmsAndUsers();
+        filmStorage.addLike(2, 3);
+        LikeWriteBehind writeBehind = writeBehind(100, 100);
+        writeBehind.start();
+
+        writeBehind.addLike(1, 1);
+        writeBehind.addLike(1, 2);
+        writeBehind.addLike(2, 1);
+        writeBehind.deleteLike(2, 3);
+
+        assertThat(filmStorage.getLikes(1, 0, 10)).isEmpty();
+        assertThat(writeBehind.likedFilmIds(1, filmStorage.getLikedFilmIds(1))).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(writeBehind.likedFilmIds(3, filmStorage.getLikedFilmIds(3))).isEmpty();
+        assertEquals(List.of(1L, 2L), writeBehind.likes(1, 0, 10, filmStorage.getLikes(1, 0, 10)));
+        assertEquals(List.of(2L), writeBehind.likes(1, 1, 10, filmStorage.getLikes(1, 1, 10)));
+        assertEquals(2, writeBehind.likesCountDelta(1));
+        assertEquals(0, writeBehind.likesCountDelta(2));
+
+        writeBehind.stop();
+
+        assertEquals(0, writeBehind.pendingCount());
+        assertEquals(0, writeBehind.likesCountDelta(1));
+        assertEquals(List.of(1L, 2L), filmStorage.getLikes(1, 0, 10));
+        assertEquals(List.of(1L), filmStorage.getLikes(2, 0, 10));
+        assertEquals(2, filmStorage.getFilmById(1).getLikesCount());
+        assertEquals(1, filmStorage.getFilmById(2).getLikesCount());
+    }
+
+    @Sql("classpath:/data.sql")
+    @Order(3)
+    @Test
+    void should_Write_Full_Batch_Without_Waiting_For_Flush_Interval() throws InterruptedException {
+        addFilmsAndUsers();
+        LikeWriteBehind writeBehind = writeBehind(100, 2);
+        writeBehind.start();
+
+        writeBehind.addLike(1, 1);
+        writeBehind.addLike(2, 1);
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (writeBehind.pendingCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(0, writeBehind.pendingCount());
+        assertThat(filmStorage.getLikedFilmIds(1)).containsExactlyInAnyOrder(1L, 2L);
+        writeBehind.stop();
+    }
+
+    @Sql("classpath:/data.sql")
+    @Order(4)
+    @Test
+    void should_Reject_Likes_When_Queue_Is_Full() {
+        addFilmsAndUsers();
+        LikeWriteBehind writeBehind = writeBehind(1, 100);
+
+        writeBehind.addLike(1, 1);
+
+        assertThrows(ServiceUnavailableException.class, () -> writeBehind.addLike(1, 2));
+        writeBehind.deleteLike(1, 1);
+        assertTrue(writeBehind.addLike(1, 2));
+    }
+
+    @Sql("classpath:/data.sql")
+    @Order(5)
+    @Test
+    void should_Reject_Likes_Of_Unknown_Film_Or_User() {
+        addFilmsAndUsers();
+        LikeWriteBehind writeBehind = writeBehind(100, 100);
+
+        assertThrows(EntityNotFoundException.class, () -> writeBehind.addLike(99, 1));
+        assertThrows(EntityNotFoundException.class, () -> writeBehind.addLike(1, 99));
+        assertEquals(0, writeBehind.pendingCount());
+    }
+
+    @Sql("classpath:/data.sql")
+    @Order(6)
+    @Test
+    void should_Check_State_Again_After_Waiting_For_Capacity() throws Exception {
+        addFilmsAndUsers();
+        LikeWriteBehind writeBehind = writeBehind(1, 100, 10_000);
+        writeBehind.addLike(1, 1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<Thread> waiting = new CopyOnWriteArrayList<>();
+        Callable<Boolean> like = () -> {
+            waiting.add(Thread.currentThread());
+            return writeBehind.addLike(2, 1);
+        };
+
+        try {
+            Future<Boolean> first = executor.submit(like);
+            Future<Boolean> second = executor.submit(like);
+            long deadline = System.currentTimeMillis() + 5_000;
+            while ((waiting.size() < 2 || waiting.stream().anyMatch(thread -> thread.getState()
+                    != Thread.State.TIMED_WAITING)) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            writeBehind.deleteLike(1, 1);
+
+            assertEquals(1, (first.get(5, TimeUnit.SECONDS) ? 1 : 0) + (second.get(5, TimeUnit.SECONDS) ? 1 : 0));
+            assertEquals(1, writeBehind.pendingCount());
+            assertEquals(1, writeBehind.likesCountDelta(2));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Sql("classpath:/data.sql")
+    @Order(7)
+    @Test
+    void should_Move_Leaderboard_Only_For_Written_Likes() throws InterruptedException {
+        addFilmsAndUsers();
+        filmStorage.addLike(2, 3);
+        LikeWriteBehind writeBehind = writeBehind(100, 100);
+        writeBehind.start();
+
+        for (long userId = 1; userId <= 2; userId++) {
+            assertTrue(writeBehind.addLike(1, userId));
+        }
+        assertEquals(List.of(2L, 1L), leaderboard.getTop(2));
+        userStorage.deleteUser(1);
+        writeBehind.stop();
+
+        assertEquals(List.of(2L), filmStorage.getLikes(1, 0, 10));
+        assertEquals(0, writeBehind.likesCountDelta(1));
+        assertEquals(List.of(1L, 2L), leaderboard.getTop(2));
+    }
+
+    @Sql("classpath:/data.sql")
+    @Order(8)
+    @Test
+    void should_Count_Queued_Likes_Once_When_Leaderboard_Reloads() throws InterruptedException {
+        addFilmsAndUsers();
+        filmStorage.addLike(2, 3);
+        LikeWriteBehind writeBehind = writeBehind(100, 100);
+        writeBehind.start();
+
+        writeBehind.addLike(1, 1);
+        writeBehind.addLike(1, 2);
+        leaderboard.load(filmStorage.getFilmPopularity());
+        writeBehind.stop();
+
+        assertEquals(List.of(1L, 2L), leaderboard.getTop(2));
+        leaderboard.load(filmStorage.getFilmPopularity());
+        assertEquals(List.of(1L, 2L), leaderboard.getTop(2));
+        assertEquals(2, filmStorage.getFilmById(1).getLikesCount());
+    }
+
+    @Sql("classpath:/data.sql")
+    @Order(9)
+    @Test
+    void should_Read_Storage_Only_For_Likes_That_Are_Not_Queued() {
+        addFilmsAndUsers();
+        LikeWriteBehind writeBehind = writeBehind(100, 100);
+
+        statementCounter.reset();
+        assertTrue(writeBehind.addLike(1, 1));
+        assertEquals(1, statementCounter.getCount());
+
+        statementCounter.reset();
+        assertFalse(writeBehind.addLike(1, 1));
+        writeBehind.deleteLike(1, 1);
+        assertEquals(0, statementCounter.getCount());
+    }
+}
@@ -0,0 +1,48 @@
+package StorageTests;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.exceptions.EntityNotFoundException;
+import ru.yandex.practicum.filmorate.storage.impl.ReferenceDictionary;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(classes = FilmorateApplication.class)
+@AutoConfigureTestDatabase
+@Import(StatementCounter.class)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ReferenceDictionaryTest {
+    private final ReferenceDictionary dictionary;
+    private final JdbcTemplate jdbcTemplate;
+    private final StatementCounter statementCounter;
+
+    @Test
+    void should_Resolve_Ids_Without_Queries_And_Pick_Up_Changes_On_Reload() {
+        dictionary.reload();
+
+        statementCounter.reset();
+        assertEquals("PG-13", dictionary.getMpa(3L).getName());
+        assertEquals("Мультфильм", dictionary.getGenre(3L).getName());
+        assertThat(dictionary.getAllGenres()).hasSize(6);
+        assertThat(dictionary.getAllMpa()).hasSize(5);
+        assertThrows(EntityNotFoundException.class, () -> dictionary.getGenre(333L));
+        assertThrows(EntityNotFoundException.class, () -> dictionary.getMpa(0L));
+        assertEquals(0, statementCounter.getCount());
+
+        jdbcTemplate.update("merge into GENRES (GENRE_ID, GENRE_NAME) values (7, 'Вестерн')");
+        assertThrows(EntityNotFoundException.class, () -> dictionary.getGenre(7L));
+        dictionary.reload();
+        assertEquals("Вестерн", dictionary.getGenre(7L).getName());
+
+        jdbcTemplate.update("delete from GENRES where GENRE_ID = 7");
+        dictionary.reload();
+    }
+}
@@ -0,0 +1,52 @@
+package StorageTests;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.exceptions.EntityNotFoundException;
+import ru.yandex.practicum.filmorate.storage.impl.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryUserStorage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(classes = FilmorateApplication.class)
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class StorageMetricsTest {
+    private final FilmDbStorage filmStorage;
+    private final InMemoryUserStorage inMemoryUserStorage;
+    private final MeterRegistry meterRegistry;
+
+    @Sql("classpath:/data.sql")
+    @Test
+    void should_Time_Db_Storage_Calls() {
+        long before = count("FilmStorage", "db", "getFilms", "none");
+
+        filmStorage.getFilms();
+
+        assertEquals(before + 1, count("FilmStorage", "db", "getFilms", "none"));
+    }
+
+    @Test
+    void should_Tag_In_Memory_Storage_Calls_And_Exceptions() {
+        long before = count("UserStorage", "in-memory", "getUserById", "EntityNotFoundException");
+
+        assertThrows(EntityNotFoundException.class, () -> inMemoryUserStorage.getUserById(-1L));
+
+        assertEquals(before + 1, count("UserStorage", "in-memory", "getUserById", "EntityNotFoundException"));
+    }
+
+    private long count(String storage, String implementation, String method, String exception) {
+        Timer timer = meterRegistry.find("filmorate.storage.calls")
+                .tags("storage", storage, "implementation", implementation, "method", method, "exception", exception)
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
@@ -0,0 +1,104 @@
+package StorageTests;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.jdbc.Sql;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserBuilder;
+import ru.yandex.practicum.filmorate.storage.impl.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(classes = FilmorateApplication.class)
+@AutoConfigureTestDatabase
+@Import(StatementCounter.class)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class UserDbStorageStatementCountTest {
+    private static final int USER_STATEMENTS = 2;
+
+    private final UserDbStorage userStorage;
+    private final StatementCounter statementCounter;
+
+    void addUsers(int count) {
+        for (int i = 0; i < count; i++) {
+            userStorage.addUser(UserBuilder.builder()
+                    .name("User" + i)
+                    .login("login" + i)
+                    .email("user" + i + "@yandex.ru")
+                    .birthday(LocalDate.of(1995, 12, 27))
+                    .build());
+        }
+    }
+
+    @Sql("classpath:/data.sql")
+    @Order(1)
+    @Test
+    void should_Use_Fixed_Number_Of_Statements_For_Get_Users() {
+        addUsers(3);
+        userStorage.addFriend(1, 2);
+        userStorage.addFriend(1, 3);
+        userStorage.addFriend(2, 3);
+
+        statementCounter.reset();
+        List<User> users = userStorage.getUsers();
+        assertEquals(3, users.size());
+        assertThat(users.get(0).getFriendsId()).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(users.get(2).getFriendsId()).isEmpty();
+        assertEquals(USER_STATEMENTS, statementCounter.getCount());
+
+        addUsers(20);
+        statementCounter.reset();
+        users = userStorage.getUsers();
+        assertEquals(23, users.size());
+        assertEquals(USER_STATEMENTS, statementCounter.getCount());
+    }
+
+    @Order(2)
+    @Test
+    void should_Use_Fixed_Number_Of_Statements_For_Users_Page() {
+        statementCounter.reset();
+        List<User> users = userStorage.getUsers(0, 10);
+        assertEquals(10, users.size());
+        assertThat(users.get(1).getFriendsId()).containsExactly(3L);
+        assertEquals(USER_STATEMENTS, statementCounter.getCount());
+    }
+
+    @Order(3)
+    @Test
+    void should_Return_Friends_With_Their_Friend_Ids() {
+        statementCounter.reset();
+        List<User> friends = userStorage.getFriends(1);
+        assertThat(friends).extracting(User::getId).containsExactlyInAnyOrder(2L, 3L);
+        User friend = friends.stream().filter(user -> user.getId() == 2L).findFirst().orElseThrow();
+        assertThat(friend.getFriendsId()).containsExactly(3L);
+        assertEquals(USER_STATEMENTS, statementCounter.getCount());
+    }
+
+    @Order(4)
+    @Test
+    void should_Use_Fixed_Number_Of_Statements_For_Common_Friends() {
+        for (long id = 4; id <= 13; id++) {
+            userStorage.addFriend(1, id);
+            userStorage.addFriend(2, id);
+            userStorage.addFriend(id, 1);
+        }
+
+        statementCounter.reset();
+        List<User> commonFriends = userStorage.getCommonFriends(1, 2);
+        assertEquals(11, commonFriends.size());
+        assertThat(commonFriends).filteredOn(user -> user.getId() > 3)
+                .allSatisfy(user -> assertThat(user.getFriendsId()).containsExactly(1L));
+        assertEquals(USER_STATEMENTS, statementCounter.getCount());
+    }
+}
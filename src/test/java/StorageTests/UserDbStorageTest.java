@@ -10,11 +10,13 @@ import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.test.context.jdbc.Sql;
 import ru.yandex.practicum.filmorate.FilmorateApplication;
 import ru.yandex.practicum.filmorate.exceptions.EntityNotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.model.UserBuilder;
 import ru.yandex.practicum.filmorate.storage.impl.UserDbStorage;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -66,7 +68,7 @@ class UserDbStorageTest {
         userStorage.addFriend(1L, 4L);
     }
 
-    @Sql({"classpath:/schema.sql", "classpath:/data.sql"})
+    @Sql("classpath:/data.sql")
     @Order(1)
     @Test()
     void add_User_Test() {
@@ -242,4 +244,37 @@ class UserDbStorageTest {
         assertThat(userOptional).isPresent().hasValueSatisfying(users -> assertThat(users).isEmpty());Optional<List<User>> userOptional2 = Optional.ofNullable(userStorage.getCommonFriends(2L, 4444L));
         assertThat(userOptional2).isPresent().hasValueSatisfying(users -> assertThat(users).isEmpty());
     }
-}
\ No newline at end of file
+
+    @Order(16)
+    @Test
+    void should_Get_Users_Page_After_Id() {
+        Optional<List<User>> usersPage = Optional.ofNullable(userStorage.getUsers(1L, 2));
+        assertThat(usersPage).isPresent().hasValueSatisfying(users -> {
+            assertThat(users).extracting(User::getId).containsExactly(2L, 3L);
+            assertThat(users.get(0).getFriendsId()).containsExactly(3L);
+        });
+
+        assertThat(userStorage.getUsers(4L, 2)).isEmpty();
+        assertThrows(ValidationException.class, () -> userStorage.getUsers(0L, 0));
+    }
+
+    @Order(17)
+    @Test
+    void should_Stream_Users_With_Friends() {
+        List<User> users = new ArrayList<>();
+        userStorage.streamUsers(users::add);
+        assertThat(users).extracting(User::getId).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(users.get(0).getFriendsId()).containsExactlyInAnyOrder(2L, 3L, 4L);
+        assertThat(users.get(3).getFriendsId()).isEmpty();
+    }
+
+    @Order(18)
+    @Test
+    void should_Ignore_Repeated_Friend_Request() {
+        userStorage.addFriend(1L, 2L);
+        userStorage.addFriend(1L, 2L);
+
+        assertThat(userStorage.getUserById(1L).getFriendsId()).containsExactlyInAnyOrder(2L, 3L, 4L);
+        assertThat(userStorage.getFriends(1L)).hasSize(3);
+    }
+}
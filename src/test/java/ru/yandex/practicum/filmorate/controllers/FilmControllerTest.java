@@ -2,29 +2,58 @@ package ru.yandex.practicum.filmorate.controllers;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.yandex.practicum.filmorate.adapters.NdjsonAdapter;
 import ru.yandex.practicum.filmorate.exceptions.EntityNotFoundException;
 import ru.yandex.practicum.filmorate.exceptions.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.FilmBuilder;
+import ru.yandex.practicum.filmorate.model.FilmPopularity;
+import ru.yandex.practicum.filmorate.model.FilteredFilms;
+import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.UserBuilder;
+import ru.yandex.practicum.filmorate.service.FilmFacetIndex;
+import ru.yandex.practicum.filmorate.service.FilmRecommender;
+import ru.yandex.practicum.filmorate.service.FilmSearchIndex;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.LikeWriteBehind;
+import ru.yandex.practicum.filmorate.service.PopularFilmsLeaderboard;
 import ru.yandex.practicum.filmorate.storage.impl.InMemoryFilmStorage;
 import ru.yandex.practicum.filmorate.storage.impl.InMemoryUserStorage;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class FilmControllerTest {
     private FilmController filmController;
+    private RecommendationController recommendationController;
+    private FilmRecommender recommender;
+    private InMemoryUserStorage userStorage;
     Mpa mpa = Mpa.builder().id(1L).name("G").build();
 
     @BeforeEach
     public void setUp() {
-        filmController = new FilmController(new FilmService(new InMemoryFilmStorage(new InMemoryUserStorage())));
+        userStorage = new InMemoryUserStorage();
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage(userStorage);
+        recommender = new FilmRecommender(filmStorage);
+        PopularFilmsLeaderboard leaderboard = new PopularFilmsLeaderboard();
+        FilmService filmService = new FilmService(filmStorage, leaderboard, recommender,
+                new FilmSearchIndex(), new FilmFacetIndex(),
+                new LikeWriteBehind(filmStorage, leaderboard, false, 10000, 500, 100, 1000));
+        filmController = new FilmController(filmService, new NdjsonAdapter(Jackson2ObjectMapperBuilder.json().build()));
+        recommendationController = new RecommendationController(filmService);
     }
 
     @Test
@@ -217,4 +246,395 @@ class FilmControllerTest {
             assertEquals(3, films.size());
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void should_Get_Best_Films_Ordered_By_Likes() {
+        for (String name : List.of("Otto", "Tom", "Titanic")) {
+            filmController.create(FilmBuilder.builder()
+                    .name(name)
+                    .description("description")
+                    .releaseDate(LocalDate.of(1995, 10, 12))
+                    .duration(150)
+                    .mpa(mpa)
+                    .build());
+        }
+        for (String login : List.of("QW", "AS")) {
+            userStorage.addUser(UserBuilder.builder()
+                    .login(login)
+                    .email(login + "@mail.ru")
+                    .birthday(LocalDate.of(1995, 12, 27))
+                    .build());
+        }
+
+        filmController.addLike(3, 1);
+        filmController.addLike(3, 2);
+        filmController.addLike(2, 1);
+        assertEquals(List.of(3L, 2L), filmController.getBestFilms(2, null, null).stream()
+                .map(Film::getId)
+                .collect(Collectors.toList()));
+
+        filmController.deleteLike(3, 1);
+        filmController.deleteLike(3, 2);
+        filmController.deleteFilmById(2);
+        assertEquals(List.of(1L, 3L), filmController.getBestFilms(10, null, null).stream()
+                .map(Film::getId)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void should_Count_Likes_And_Page_Like_Ids() {
+        filmController.create(FilmBuilder.builder()
+                .name("Otto")
+                .description("description")
+                .releaseDate(LocalDate.of(1995, 10, 12))
+                .duration(150)
+                .mpa(mpa)
+                .build());
+        for (String login : List.of("QW", "AS", "ZX")) {
+            userStorage.addUser(UserBuilder.builder()
+                    .login(login)
+                    .email(login + "@mail.ru")
+                    .birthday(LocalDate.of(1995, 12, 27))
+                    .build());
+            filmController.addLike(1, userStorage.getUsers().size());
+        }
+
+        assertEquals(3, filmController.getFilmById(1).getLikesCount());
+        assertEquals(List.of(1L, 2L), filmController.getLikes(1, 0, 2));
+        assertEquals(List.of(3L), filmController.getLikes(1, 2, 2));
+
+        filmController.deleteLike(1, 2);
+        assertEquals(2, filmController.getFilmById(1).getLikesCount());
+        assertEquals(List.of(1L, 3L), filmController.getLikes(1, 0, 10));
+        assertThrows(EntityNotFoundException.class, () -> filmController.getLikes(2, 0, 10));
+    }
+
+    @Test
+    void should_Keep_Likes_When_Film_Updated() {
+        filmController.create(FilmBuilder.builder()
+                .name("Otto")
+                .description("description")
+                .releaseDate(LocalDate.of(1995, 10, 12))
+                .duration(150)
+                .mpa(mpa)
+                .build());
+        for (String login : List.of("QW", "AS")) {
+            userStorage.addUser(UserBuilder.builder()
+                    .login(login)
+                    .email(login + "@mail.ru")
+                    .birthday(LocalDate.of(1995, 12, 27))
+                    .build());
+            filmController.addLike(1, userStorage.getUsers().size());
+        }
+
+        filmController.update(FilmBuilder.builder()
+                .id(1)
+                .name("Spider Man")
+                .description("description")
+                .releaseDate(LocalDate.of(1995, 10, 12))
+                .duration(150)
+                .mpa(mpa)
+                .build());
+
+        Film film = filmController.getFilmById(1);
+        assertEquals("Spider Man", film.getName());
+        assertEquals(2, film.getLikesCount());
+        assertEquals(List.of(1L, 2L), filmController.getLikes(1, 0, 10));
+    }
+
+    @Test
+    void should_Stream_All_Films_Across_Pages() throws IOException {
+        for (int i = 1; i <= 501; i++) {
+            filmController.create(FilmBuilder.builder()
+                    .name("Film" + i)
+                    .description("description")
+                    .releaseDate(LocalDate.of(1995, 10, 12))
+                    .duration(150)
+                    .mpa(mpa)
+                    .build());
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        filmController.streamAll().getBody().writeTo(output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(501, lines.length);
+        assertTrue(lines[500].contains("\"id\":501"));
+    }
+
+    @Test
+    void should_Reject_Film_Pages_Over_Limit() {
+        filmController.create(FilmBuilder.builder()
+                .name("Otto")
+                .description("description")
+                .releaseDate(LocalDate.of(1995, 10, 12))
+                .duration(150)
+                .mpa(mpa)
+                .build());
+
+        assertEquals(1, filmController.findPage(1000, 0).size());
+        assertThrows(ValidationException.class, () -> filmController.findPage(1001, 0));
+        assertThrows(ValidationException.class, () -> filmController.findPage(0, 0));
+    }
+
+    @Test
+    void should_Recommend_Films_Liked_Together_With_Users_Films() {
+        for (String name : List.of("Otto", "Tom", "Titanic", "Alien")) {
+            filmController.create(FilmBuilder.builder()
+                    .name(name)
+                    .description("description")
+                    .releaseDate(LocalDate.of(1995, 10, 12))
+                    .duration(150)
+                    .mpa(mpa)
+                    .build());
+        }
+        for (String login : List.of("QW", "AS", "ZX")) {
+            userStorage.addUser(UserBuilder.builder()
+                    .login(login)
+                    .email(login + "@mail.ru")
+                    .birthday(LocalDate.of(1995, 12, 27))
+                    .build());
+        }
+        filmController.addLike(1, 1);
+        filmController.addLike(2, 1);
+        filmController.addLike(1, 2);
+        filmController.addLike(2, 2);
+        filmController.addLike(3, 2);
+        filmController.addLike(1, 3);
+        filmController.addLike(4, 3);
+
+        assertTrue(recommendationController.getRecommendations(1, 10).isEmpty());
+
+        recommender.rebuild();
+        assertEquals(List.of(3L, 4L), recommendationController.getRecommendations(1, 10).stream()
+                .map(Film::getId)
+                .collect(Collectors.toList()));
+        assertEquals(List.of(3L), recommendationController.getRecommendations(1, 1).stream()
+                .map(Film::getId)
+                .collect(Collectors.toList()));
+        assertThrows(ValidationException.class, () -> recommendationController.getRecommendations(1, 0));
+    }
+
+    @Test
+    void should_Search_Films_By_Name_And_Description_With_Incremental_Updates() {
+        List<String[]> films = List.of(
+                new String[]{"Alien", "Space horror on a cargo ship"},
+                new String[]{"Aliens", "Marines fight the alien queen, alien everywhere"},
+                new String[]{"Titanic", "A ship, an iceberg and a love story"});
+        for (String[] film : films) {
+            filmController.create(FilmBuilder.builder()
+                    .name(film[0])
+                    .description(film[1])
+                    .releaseDate(LocalDate.of(1995, 10, 12))
+                    .duration(150)
+                    .mpa(mpa)
+                    .build());
+        }
+
+        assertEquals(List.of(2L, 1L), searchIds("ALIEN", Set.of("name", "description")));
+        assertEquals(List.of(1L), searchIds("alien", Set.of("name")));
+        assertEquals(List.of(3L, 1L), searchIds("ship iceberg", Set.of("description")));
+
+        filmController.update(FilmBuilder.builder()
+                .id(3)
+                .name("Titanic")
+                .description("Love story")
+                .releaseDate(LocalDate.of(1997, 12, 19))
+                .duration(195)
+                .mpa(mpa)
+                .build());
+        filmController.deleteFilmById(1);
+        assertEquals(List.of(), searchIds("ship iceberg", Set.of("description")));
+        assertEquals(List.of(3L), searchIds("love", Set.of("name", "description")));
+        assertThrows(ValidationException.class, () -> filmController.search("alien", Set.of("year"), 10));
+    }
+
+    private List<Long> searchIds(String query, Set<String> by) {
+        return filmController.search(query, by, 10).stream()
+                .map(Film::getId)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void should_Filter_Films_By_Facets_And_Count_Facet_Values() {
+        Mpa pg = Mpa.builder().id(2L).name("PG").build();
+        Genre comedy = Genre.builder().id(1L).name("Комедия").build();
+        Genre drama = Genre.builder().id(2L).name("Драма").build();
+        filmController.create(facetFilm("Otto", 1999, mpa, Set.of(comedy)));
+        filmController.create(facetFilm("Tom", 2003, pg, Set.of(comedy, drama)));
+        filmController.create(facetFilm("Titanic", 1997, pg, Set.of(drama)));
+        filmController.create(facetFilm("Alien", 2005, pg, Set.of()));
+        userStorage.addUser(UserBuilder.builder()
+                .login("QW")
+                .email("QW@mail.ru")
+                .birthday(LocalDate.of(1995, 12, 27))
+                .build());
+        filmController.addLike(4, 1);
+
+        FilteredFilms all = filmController.filter(Set.of(), Set.of(), null, "id", 100);
+        assertEquals(4, all.getTotal());
+        assertEquals(Map.of(1L, 2, 2L, 2), all.getGenreCounts());
+        assertEquals(Map.of(1L, 1, 2L, 3), all.getMpaCounts());
+
+        FilteredFilms filtered = filmController.filter(Set.of(), Set.of(2L), "1999..2005", "popular", 100);
+        assertEquals(List.of(4L, 2L), filtered.getFilms().stream()
+                .map(Film::getId)
+                .collect(Collectors.toList()));
+        assertEquals(Map.of(2003L, 1, 2005L, 1), filtered.getYearCounts());
+
+        filmController.deleteFilmById(2);
+        FilteredFilms comedies = filmController.filter(Set.of(1L), Set.of(), "..2000", "id", 100);
+        assertEquals(List.of(1L), comedies.getFilms().stream()
+                .map(Film::getId)
+                .collect(Collectors.toList()));
+        assertThrows(ValidationException.class, () -> filmController.filter(Set.of(), Set.of(), "nineties", "id", 10));
+        assertThrows(ValidationException.class, () -> filmController.filter(Set.of(), Set.of(), null, "name", 10));
+    }
+
+    private Film facetFilm(String name, int year, Mpa mpa, Set<Genre> genres) {
+        return FilmBuilder.builder()
+                .name(name)
+                .description("description")
+                .releaseDate(LocalDate.of(year, 1, 1))
+                .duration(150)
+                .mpa(mpa)
+                .genres(genres)
+                .build();
+    }
+
+    @Test
+    void should_Get_Best_Films_Of_Genre_And_Year() {
+        Genre comedy = Genre.builder().id(1L).name("Комедия").build();
+        Genre drama = Genre.builder().id(2L).name("Драма").build();
+        filmController.create(facetFilm("Otto", 2022, mpa, Set.of(comedy)));
+        filmController.create(facetFilm("Tom", 2022, mpa, Set.of(comedy, drama)));
+        filmController.create(facetFilm("Titanic", 1997, mpa, Set.of(drama)));
+        for (String login : List.of("QW", "AS")) {
+            userStorage.addUser(UserBuilder.builder()
+                    .login(login)
+                    .email(login + "@mail.ru")
+                    .birthday(LocalDate.of(1995, 12, 27))
+                    .build());
+        }
+        filmController.addLike(2, 1);
+        filmController.addLike(3, 1);
+        filmController.addLike(3, 2);
+
+        assertEquals(List.of(3L, 2L), bestFilmIds(2L, null));
+        assertEquals(List.of(2L, 1L), bestFilmIds(1L, null));
+        assertEquals(List.of(2L, 1L), bestFilmIds(null, 2022));
+        assertEquals(List.of(2L), bestFilmIds(2L, 2022));
+        assertEquals(List.of(), bestFilmIds(1L, 1997));
+
+        filmController.addLike(1, 1);
+        filmController.addLike(1, 2);
+        assertEquals(List.of(1L, 2L), bestFilmIds(1L, 2022));
+    }
+
+    @Test
+    void should_Count_Like_Once_When_Leaderboard_Reloads_While_Liking() throws InterruptedException {
+        AtomicReference<Thread> reload = new AtomicReference<>();
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage(userStorage) {
+            @Override
+            public boolean addLike(long filmId, long userId) {
+                boolean added = super.addLike(filmId, userId);
+                Thread thread = reload.getAndSet(null);
+                if (thread != null) {
+                    thread.start();
+                    while (thread.getState() != Thread.State.WAITING && thread.isAlive()) {
+                        Thread.onSpinWait();
+                    }
+                }
+                return added;
+            }
+        };
+        PopularFilmsLeaderboard leaderboard = new PopularFilmsLeaderboard();
+        FilmService filmService = new FilmService(filmStorage, leaderboard, new FilmRecommender(filmStorage),
+                new FilmSearchIndex(), new FilmFacetIndex(),
+                new LikeWriteBehind(filmStorage, leaderboard, false, 10000, 500, 100, 1000));
+        for (String name : List.of("Otto", "Tom")) {
+            filmService.addFilm(FilmBuilder.builder()
+                    .name(name)
+                    .description("description")
+                    .releaseDate(LocalDate.of(1995, 10, 12))
+                    .duration(150)
+                    .mpa(mpa)
+                    .build());
+        }
+        for (String login : List.of("QW", "AS")) {
+            userStorage.addUser(UserBuilder.builder()
+                    .login(login)
+                    .email(login + "@mail.ru")
+                    .birthday(LocalDate.of(1995, 12, 27))
+                    .build());
+        }
+        filmService.addLike(1, 1);
+        filmService.getBestFilms(2);
+
+        Thread thread = new Thread(filmService::reloadLeaderboard);
+        reload.set(thread);
+        filmService.addLike(2, 2);
+        thread.join(5_000);
+
+        assertEquals(List.of(1L, 2L), filmService.getBestFilms(2).stream()
+                .map(Film::getId)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void should_Read_Best_Films_From_Storage_While_Leaderboard_Loads() throws InterruptedException {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage(userStorage) {
+            @Override
+            public List<FilmPopularity> getFilmPopularity() {
+                loading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.getFilmPopularity();
+            }
+        };
+        PopularFilmsLeaderboard leaderboard = new PopularFilmsLeaderboard();
+        FilmService filmService = new FilmService(filmStorage, leaderboard, new FilmRecommender(filmStorage),
+                new FilmSearchIndex(), new FilmFacetIndex(),
+                new LikeWriteBehind(filmStorage, leaderboard, false, 10000, 500, 100, 1000));
+        for (String name : List.of("Otto", "Tom")) {
+            filmService.addFilm(FilmBuilder.builder()
+                    .name(name)
+                    .description("description")
+                    .releaseDate(LocalDate.of(1995, 10, 12))
+                    .duration(150)
+                    .mpa(mpa)
+                    .build());
+        }
+        userStorage.addUser(UserBuilder.builder()
+                .login("QW")
+                .email("QW@mail.ru")
+                .birthday(LocalDate.of(1995, 12, 27))
+                .build());
+        filmService.addLike(2, 1);
+
+        Thread load = new Thread(filmService::reloadLeaderboard);
+        load.start();
+        loading.await();
+        try {
+            assertEquals(List.of(2L, 1L), filmService.getBestFilms(2).stream()
+                    .map(Film::getId)
+                    .collect(Collectors.toList()));
+        } finally {
+            release.countDown();
+            load.join(5_000);
+        }
+        assertTrue(leaderboard.isLoaded());
+        assertThrows(ValidationException.class, () -> filmService.getBestFilms(10, null, Integer.MAX_VALUE));
+    }
+
+    private List<Long> bestFilmIds(Long genreId, Integer year) {
+        return filmController.getBestFilms(10, genreId, year).stream()
+                .map(Film::getId)
+                .collect(Collectors.toList());
+    }
+}
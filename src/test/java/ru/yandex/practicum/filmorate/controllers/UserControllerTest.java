@@ -1,12 +1,16 @@
 
 package ru.yandex.practicum.filmorate.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.adapters.NdjsonAdapter;
 import ru.yandex.practicum.filmorate.exceptions.EntityNotFoundException;
 import ru.yandex.practicum.filmorate.exceptions.ValidationException;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.model.UserBuilder;
+import ru.yandex.practicum.filmorate.service.FriendGraph;
+import ru.yandex.practicum.filmorate.service.PopularFilmsLeaderboard;
 import ru.yandex.practicum.filmorate.service.UserService;
 import ru.yandex.practicum.filmorate.storage.impl.InMemoryUserStorage;
 
@@ -23,7 +27,8 @@ class UserControllerTest {
 
     @BeforeEach
     public void setUp() {
-        userController = new UserController(new UserService(new InMemoryUserStorage()));
+        userController = new UserController(new UserService(new InMemoryUserStorage(), new PopularFilmsLeaderboard(),
+                new FriendGraph()), new NdjsonAdapter(new ObjectMapper()));
     }
 
     @Test
@@ -231,4 +236,87 @@ class UserControllerTest {
             assertEquals(2, users.size());
         });
     }
+
+    @Test
+    void should_Reject_User_Pages_Over_Limit() {
+        userController.create(UserBuilder.builder()
+                .login("QW")
+                .email("qw@mail.ru")
+                .birthday(LocalDate.of(1995, 12, 27))
+                .build());
+
+        assertEquals(1, userController.findPage(1000, 0).size());
+        assertThrows(ValidationException.class, () -> userController.findPage(1001, 0));
+    }
+
+    @Test
+    void should_Get_Common_Friends_After_Friend_Changes() {
+        for (int i = 1; i <= 4; i++) {
+            userController.create(UserBuilder.builder()
+                    .login("login" + i)
+                    .name("User" + i)
+                    .email("user" + i + "@mail.ru")
+                    .birthday(LocalDate.of(1995, 12, 27))
+                    .build());
+        }
+        userController.addFriend(1, 3);
+        userController.addFriend(2, 3);
+        assertEquals(List.of(3L), userController.getCommonFriends(1, 2).stream()
+                .map(User::getId)
+                .collect(Collectors.toList()));
+
+        userController.addFriend(1, 4);
+        userController.addFriend(2, 4);
+        userController.deleteFriend(2, 3);
+        assertEquals(List.of(4L), userController.getCommonFriends(1, 2).stream()
+                .map(User::getId)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void should_Suggest_Friends_Of_Friends_Ranked_By_Mutual_Friends() {
+        for (int i = 1; i <= 5; i++) {
+            userController.create(UserBuilder.builder()
+                    .login("login" + i)
+                    .name("User" + i)
+                    .email("user" + i + "@mail.ru")
+                    .birthday(LocalDate.of(1995, 12, 27))
+                    .build());
+        }
+        userController.addFriend(1, 2);
+        userController.addFriend(1, 3);
+        userController.addFriend(2, 4);
+        userController.addFriend(3, 4);
+        userController.addFriend(2, 5);
+
+        assertEquals(List.of(4L, 5L), userController.getFriendSuggestions(1, 10).stream()
+                .map(User::getId)
+                .collect(Collectors.toList()));
+        assertEquals(List.of(4L), userController.getFriendSuggestions(1, 1).stream()
+                .map(User::getId)
+                .collect(Collectors.toList()));
+        assertThrows(ValidationException.class, () -> userController.getFriendSuggestions(1, 0));
+    }
+
+    @Test
+    void should_Update_Suggestions_Of_Friends_When_Friend_Adds_Friend() {
+        for (int i = 1; i <= 3; i++) {
+            userController.create(UserBuilder.builder()
+                    .login("login" + i)
+                    .name("User" + i)
+                    .email("user" + i + "@mail.ru")
+                    .birthday(LocalDate.of(1995, 12, 27))
+                    .build());
+        }
+        userController.addFriend(1, 2);
+        assertTrue(userController.getFriendSuggestions(1, 10).isEmpty());
+
+        userController.addFriend(2, 3);
+        assertEquals(List.of(3L), userController.getFriendSuggestions(1, 10).stream()
+                .map(User::getId)
+                .collect(Collectors.toList()));
+
+        userController.deleteFriend(2, 3);
+        assertTrue(userController.getFriendSuggestions(1, 10).isEmpty());
+    }
 }
@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ModelJsonTest {
+    // the same modules as the application's mapper, which reads models through their constructor parameter names
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .modulesToInstall(new ParameterNamesModule(JsonCreator.Mode.DEFAULT))
+            .build();
+
+    @Test
+    void should_Write_Likes_Count_Instead_Of_Like_Ids() throws Exception {
+        Film film = FilmBuilder.builder()
+                .name("Film")
+                .description("description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(120)
+                .idUsersLike(Set.of(3L, 1L, 2L))
+                .build();
+
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(film));
+        assertThat(json.has("idUsersLike")).isFalse();
+        assertEquals(3, json.get("likesCount").asLong());
+
+        Film read = objectMapper.treeToValue(json, Film.class);
+        assertThat(read.getIdUsersLike()).isInstanceOf(LongIdSet.class).isEmpty();
+        assertEquals(0, read.getLikesCount());
+    }
+
+    @Test
+    void should_Write_And_Read_Friends_As_Array_Of_Ids() throws Exception {
+        User user = UserBuilder.builder()
+                .login("login")
+                .name("name")
+                .email("user@yandex.ru")
+                .birthday(LocalDate.of(1995, 12, 27))
+                .friendsId(Set.of(5L, 4L))
+                .build();
+
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(user));
+        assertThat(json.get("friendsId")).extracting(JsonNode::asLong).containsExactlyInAnyOrder(4L, 5L);
+
+        User read = objectMapper.treeToValue(json, User.class);
+        assertThat(read.getFriendsId()).containsExactlyInAnyOrder(4L, 5L);
+        read.deleteFriend(4L);
+        assertThat(read.getFriendsId()).containsExactly(5L);
+    }
+}